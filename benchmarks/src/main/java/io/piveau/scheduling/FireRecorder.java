@@ -0,0 +1,88 @@
+package io.piveau.scheduling;
+
+import io.vertx.core.json.JsonObject;
+import org.quartz.JobExecutionContext;
+import org.quartz.Trigger;
+import org.quartz.listeners.TriggerListenerSupport;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts fires and misfires of triggers due from a start time on, with the fire lag in milliseconds. Lags of a minute
+ * and more share the last bucket.
+ */
+class FireRecorder extends TriggerListenerSupport {
+
+    private static final int BUCKETS = 60001;
+
+    private final AtomicLongArray lags = new AtomicLongArray(BUCKETS);
+    private final LongAdder fires = new LongAdder();
+    private final LongAdder misfires = new LongAdder();
+
+    private volatile long start = Long.MAX_VALUE;
+    private volatile long maxLag;
+
+    @Override
+    public String getName() {
+        return "fire-recorder";
+    }
+
+    void start(long start) {
+        this.start = start;
+    }
+
+    long fires() {
+        return fires.sum();
+    }
+
+    long misfires() {
+        return misfires.sum();
+    }
+
+    @Override
+    public void triggerFired(Trigger trigger, JobExecutionContext context) {
+        if (context.getScheduledFireTime() == null || context.getScheduledFireTime().getTime() < start) {
+            return;
+        }
+        long lag = Math.max(context.getFireTime().getTime() - context.getScheduledFireTime().getTime(), 0);
+        lags.incrementAndGet((int) Math.min(lag, BUCKETS - 1));
+        fires.increment();
+        if (lag > maxLag) {
+            synchronized (this) {
+                maxLag = Math.max(maxLag, lag);
+            }
+        }
+    }
+
+    @Override
+    public void triggerMisfired(Trigger trigger) {
+        // still the missed fire time, misfire handling has not run yet
+        if (trigger.getNextFireTime() != null && trigger.getNextFireTime().getTime() >= start) {
+            misfires.increment();
+        }
+    }
+
+    JsonObject lagMillis() {
+        long total = fires.sum();
+        return new JsonObject()
+                .put("p50", percentile(total, 0.5))
+                .put("p90", percentile(total, 0.9))
+                .put("p99", percentile(total, 0.99))
+                .put("p999", percentile(total, 0.999))
+                .put("max", maxLag);
+    }
+
+    private long percentile(long total, double quantile) {
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int lag = 0; lag < BUCKETS; lag++) {
+            seen += lags.get(lag);
+            if (seen >= rank && seen > 0) {
+                return lag;
+            }
+        }
+        return 0;
+    }
+
+}
@@ -0,0 +1,76 @@
+package io.piveau.scheduling;
+
+import io.piveau.scheduling.quartz.QuartzService;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static io.piveau.scheduling.quartz.BenchmarkSupport.*;
+
+/**
+ * GET /triggers through the deployed service, on a job store seeded beforehand.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RestBenchmark {
+
+    private static final int PORT = 18080;
+
+    @Param({"1000", "10000", "100000"})
+    public int pipes;
+
+    private Vertx vertx;
+    private HttpClient client;
+
+    @Setup
+    public void setup() throws Exception {
+        JsonObject quartzConfig = memoryStore("rest");
+
+        // seed with a stub launcher, then hand the store over to the service
+        vertx = Vertx.vertx();
+        QuartzService seeder = createService(vertx, quartzConfig);
+        seed(seeder, pipes);
+        shutdownSchedulers();
+
+        JsonObject config = new JsonObject()
+                .put(ApplicationConfig.ENV_APPLICATION_PORT, PORT)
+                .put(ApplicationConfig.ENV_PIVEAU_QUARTZ_CONFIG, quartzConfig);
+        await(vertx.deployVerticle(MainVerticle.class, new DeploymentOptions().setConfig(config)));
+
+        client = HttpClient.newHttpClient();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        await(vertx.close());
+        shutdownSchedulers();
+    }
+
+    private String get(String path) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + PORT + path)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+    }
+
+    @Benchmark
+    public String listPage() throws Exception {
+        return get("/triggers?limit=100&after=" + pipeId(ThreadLocalRandom.current().nextInt(pipes)));
+    }
+
+    @Benchmark
+    public String listAll() throws Exception {
+        return get("/triggers");
+    }
+
+}
@@ -0,0 +1,242 @@
+package io.piveau.scheduling;
+
+import io.piveau.scheduling.launcher.FakeLauncherService;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.quartz.Scheduler;
+import org.quartz.impl.SchedulerRepository;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.piveau.scheduling.quartz.BenchmarkSupport.*;
+
+/**
+ * Load and soak run of the deployed service. Seeds interval and cron triggers through the REST API, lets them fire
+ * against a fake launcher for a while and writes fire lag, misfires, launch throughput and heap and gc figures as a
+ * JSON report.
+ * <p>
+ * Arguments are key=value pairs, see {@link #DEFAULTS}. quartz and launch take JSON merged into the respective
+ * config.
+ */
+public class Soak {
+
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+            Map.entry("pipes", "20000"),
+            // share of pipes with a cron trigger, the others get an interval trigger
+            Map.entry("cronShare", "0.5"),
+            Map.entry("cron", "0 * * * * ?"),
+            Map.entry("interval", "60"),
+            Map.entry("spread", "0"),
+            Map.entry("duration", "300"),
+            Map.entry("sample", "10"),
+            Map.entry("latency", "50"),
+            Map.entry("jitter", "50"),
+            Map.entry("failureRate", "0.01"),
+            Map.entry("store", "jdbc"),
+            Map.entry("quartz", "{}"),
+            Map.entry("launch", "{}"),
+            Map.entry("port", "18081"),
+            Map.entry("report", "soak-report.json"));
+
+    private static final int SEED_CHUNK = 5000;
+
+    private final Map<String, String> args;
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    private Soak(Map<String, String> args) {
+        this.args = args;
+    }
+
+    public static void main(String[] arguments) throws Exception {
+        Map<String, String> args = new HashMap<>(DEFAULTS);
+        for (String argument : arguments) {
+            String[] pair = argument.split("=", 2);
+            if (pair.length != 2 || !DEFAULTS.containsKey(pair[0])) {
+                System.err.println("Unknown argument " + argument + ", known are " + DEFAULTS.keySet());
+                System.exit(1);
+            }
+            args.put(pair[0], pair[1]);
+        }
+        JsonObject report = new Soak(args).run();
+        Files.writeString(Paths.get(args.get("report")), report.encodePrettily());
+        System.out.println(report.encodePrettily());
+        System.exit(0);
+    }
+
+    private JsonObject run() throws Exception {
+        JsonObject quartzConfig = args.get("store").equals("ram")
+                ? new JsonObject().put("jobStore", "ram").put("directory", Files.createTempDirectory("soak").toString())
+                : memoryStore("soak");
+        quartzConfig.mergeIn(new JsonObject(args.get("quartz")));
+
+        JsonObject config = new JsonObject()
+                .put(ApplicationConfig.ENV_APPLICATION_PORT, intArg("port"))
+                .put(ApplicationConfig.ENV_PIVEAU_QUARTZ_CONFIG, quartzConfig)
+                .put(ApplicationConfig.ENV_PIVEAU_LAUNCH_CONFIG, new JsonObject(args.get("launch")))
+                .put(ApplicationConfig.ENV_PIVEAU_LAUNCHER_ENABLED, false)
+                .put(ApplicationConfig.ENV_PIVEAU_TRIGGER_SPREAD, intArg("spread"));
+
+        // bound before the scheduler starts, no fire ever reaches a real launcher
+        Vertx vertx = Vertx.vertx();
+        FakeLauncherService launcher = new FakeLauncherService(vertx, intArg("latency"), intArg("jitter"),
+                Double.parseDouble(args.get("failureRate")));
+        launcher.bind();
+        await(vertx.deployVerticle(MainVerticle.class, new DeploymentOptions().setConfig(config)));
+
+        // nothing fires while seeding, so seeding and firing are measured separately
+        Scheduler scheduler = SchedulerRepository.getInstance().lookupAll().iterator().next();
+        FireRecorder recorder = new FireRecorder();
+        scheduler.getListenerManager().addTriggerListener(recorder);
+        scheduler.standby();
+        JsonObject seed = seed();
+        long driveStart = System.currentTimeMillis();
+        recorder.start(driveStart);
+        scheduler.start();
+
+        JsonObject drive = drive(recorder, launcher, driveStart);
+        // closing vertx unbinds the fake launcher, later fires would fail
+        scheduler.standby();
+
+        JsonObject report = new JsonObject()
+                .put("config", new JsonObject(new HashMap<String, Object>(args)))
+                .put("seed", seed)
+                .put("drive", drive)
+                .put("scheduler", get("/health").getJsonArray("checks").stream()
+                        .map(check -> (JsonObject) check)
+                        .filter(check -> "scheduler".equals(check.getString("id")))
+                        .map(check -> check.getJsonObject("data"))
+                        .findFirst()
+                        .orElse(null));
+
+        await(vertx.close());
+        shutdownSchedulers();
+        return report;
+    }
+
+    private JsonObject seed() throws Exception {
+        int pipes = intArg("pipes");
+        int cronPipes = (int) Math.round(pipes * Double.parseDouble(args.get("cronShare")));
+        String next = Instant.now().plusSeconds(intArg("interval")).toString();
+
+        long start = System.currentTimeMillis();
+        JsonObject bulk = new JsonObject();
+        for (int i = 0; i < pipes; i++) {
+            JsonObject trigger = new JsonObject().put("status", "enabled");
+            if (i < cronPipes) {
+                trigger.put("id", "cron").put("cron", args.get("cron"));
+            } else {
+                trigger.put("id", "interval")
+                        .put("interval", new JsonObject().put("value", intArg("interval")).put("unit", "SECOND"))
+                        .put("next", next);
+            }
+            bulk.put(pipeId(i), new JsonArray().add(trigger));
+            if (bulk.size() == SEED_CHUNK || i == pipes - 1) {
+                HttpResponse<String> response = send(HttpRequest.newBuilder(uri("/triggers"))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString(bulk.encode())));
+                if (response.statusCode() != 200 || response.body().contains("\"failed\"")) {
+                    throw new IllegalStateException("Seeding failed: " + response.statusCode() + " " + response.body());
+                }
+                bulk = new JsonObject();
+            }
+        }
+        long millis = System.currentTimeMillis() - start;
+        return new JsonObject()
+                .put("pipes", pipes)
+                .put("cronPipes", cronPipes)
+                .put("millis", millis)
+                .put("pipesPerSecond", pipes * 1000L / Math.max(millis, 1));
+    }
+
+    private JsonObject drive(FireRecorder recorder, FakeLauncherService launcher, long start) throws InterruptedException {
+        long duration = intArg("duration") * 1000L;
+        long sample = intArg("sample") * 1000L;
+        Map<String, long[]> gcBefore = gcFigures();
+
+        JsonArray timeline = new JsonArray();
+        long peakHeap = 0;
+        long lastSample = start;
+        long lastLaunches = 0;
+        long now;
+        while ((now = System.currentTimeMillis()) - start < duration) {
+            Thread.sleep(Math.min(1000, duration - (now - start)));
+            now = System.currentTimeMillis();
+            long heap = memory.getHeapMemoryUsage().getUsed();
+            peakHeap = Math.max(peakHeap, heap);
+            if (now - lastSample >= sample || now - start >= duration) {
+                long launches = launcher.succeeded() + launcher.failed();
+                timeline.add(new JsonObject()
+                        .put("second", (now - start) / 1000)
+                        .put("fires", recorder.fires())
+                        .put("launches", launches)
+                        .put("launchesPerSecond", (launches - lastLaunches) * 1000 / Math.max(now - lastSample, 1))
+                        .put("heapUsed", heap));
+                lastSample = now;
+                lastLaunches = launches;
+            }
+        }
+        long seconds = Math.max((System.currentTimeMillis() - start) / 1000, 1);
+
+        JsonObject gc = new JsonObject();
+        gcFigures().forEach((name, figures) -> {
+            long[] before = gcBefore.getOrDefault(name, new long[2]);
+            gc.put(name, new JsonObject().put("count", figures[0] - before[0]).put("millis", figures[1] - before[1]));
+        });
+
+        return new JsonObject()
+                .put("seconds", seconds)
+                .put("fires", recorder.fires())
+                .put("misfires", recorder.misfires())
+                .put("fireLagMillis", recorder.lagMillis())
+                .put("launches", new JsonObject()
+                        .put("succeeded", launcher.succeeded())
+                        .put("failed", launcher.failed())
+                        .put("perSecond", (launcher.succeeded() + launcher.failed()) / seconds))
+                .put("heap", new JsonObject()
+                        .put("peakUsed", peakHeap)
+                        .put("used", memory.getHeapMemoryUsage().getUsed())
+                        .put("max", memory.getHeapMemoryUsage().getMax()))
+                .put("gc", gc)
+                .put("timeline", timeline);
+    }
+
+    private static Map<String, long[]> gcFigures() {
+        Map<String, long[]> figures = new HashMap<>();
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        collectors.forEach(collector -> figures.put(collector.getName(),
+                new long[]{collector.getCollectionCount(), collector.getCollectionTime()}));
+        return figures;
+    }
+
+    private JsonObject get(String path) throws Exception {
+        return new JsonObject(send(HttpRequest.newBuilder(uri(path))).body());
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + args.get("port") + path);
+    }
+
+    private int intArg(String key) {
+        return Integer.parseInt(args.get(key));
+    }
+
+}
@@ -0,0 +1,92 @@
+package io.piveau.scheduling.launcher;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Launcher knowing every pipe, starting runs after a random latency and failing a share of them. Stands in for the
+ * launcher service, which needs a real cluster.
+ */
+public class FakeLauncherService implements LauncherService {
+
+    private final Vertx vertx;
+    private final long latency;
+    private final long jitter;
+    private final double failureRate;
+
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public FakeLauncherService(Vertx vertx, long latency, long jitter, double failureRate) {
+        this.vertx = vertx;
+        this.latency = latency;
+        this.jitter = jitter;
+        this.failureRate = failureRate;
+    }
+
+    /**
+     * Makes services of this vertx instance call this launcher. Deploy the service with the launcher verticle
+     * disabled, it would replace this binding.
+     */
+    public void bind() {
+        LocalLauncherService.bind(vertx, SERVICE_ADDRESS, this);
+    }
+
+    public long succeeded() {
+        return succeeded.get();
+    }
+
+    public long failed() {
+        return failed.get();
+    }
+
+    @Override
+    public Future<String> launch(String pipeName, JsonObject configs) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = latency + (jitter > 0 ? random.nextLong(jitter + 1) : 0);
+        boolean failure = random.nextDouble() < failureRate;
+
+        Promise<String> promise = Promise.promise();
+        Runnable complete = () -> {
+            if (failure) {
+                failed.incrementAndGet();
+                promise.fail("Launch of " + pipeName + " failed");
+            } else {
+                promise.complete("run-" + succeeded.incrementAndGet());
+            }
+        };
+        if (delay > 0) {
+            vertx.setTimer(delay, id -> complete.run());
+        } else {
+            complete.run();
+        }
+        return promise.future();
+    }
+
+    @Override
+    public Future<Boolean> isPipeAvailable(String pipeName) {
+        return Future.succeededFuture(true);
+    }
+
+    @Override
+    public Future<JsonObject> getPipe(String pipeName) {
+        return Future.succeededFuture(new JsonObject().put("header", new JsonObject().put("name", pipeName)));
+    }
+
+    @Override
+    public Future<List<JsonObject>> availablePipes() {
+        return Future.succeededFuture(List.of());
+    }
+
+    @Override
+    public Future<List<String>> pipeNames(String prefix) {
+        return Future.succeededFuture(List.of());
+    }
+
+}
@@ -0,0 +1,110 @@
+package io.piveau.scheduling.quartz;
+
+import io.piveau.scheduling.ApplicationConfig;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.h2.tools.RunScript;
+import org.quartz.Scheduler;
+import org.quartz.SchedulerException;
+import org.quartz.impl.SchedulerRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+
+public final class BenchmarkSupport {
+
+    private static final int SEED_CHUNK = 5000;
+
+    private BenchmarkSupport() {
+    }
+
+    public static String pipeId(int index) {
+        return String.format("bench-%06d", index);
+    }
+
+    /**
+     * Creates the quartz tables in a fresh in-memory database, kept open for the lifetime of the jvm.
+     */
+    public static JsonObject memoryStore(String name) throws Exception {
+        String url = "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1";
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             InputStream inputStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("tables_h2.sql")) {
+            RunScript.execute(connection, new InputStreamReader(inputStream));
+        }
+        return new JsonObject().put("url", url);
+    }
+
+    /**
+     * A quartz service on the given store, launching to a stub launcher without going through the event bus. Created
+     * on a worker of the given vertx, like the service verticle does.
+     */
+    public static QuartzService createService(Vertx vertx, JsonObject quartzConfig) throws IOException {
+        return createService(vertx, quartzConfig, new StubLauncherService(), new JsonObject());
+    }
+
+    public static QuartzService createService(Vertx vertx, JsonObject quartzConfig, StubLauncherService launcherService, JsonObject launchConfig) throws IOException {
+        VertxJobFactory jobFactory = new VertxJobFactory(new LaunchAdmission(vertx, launcherService, launchConfig), journal());
+        JsonObject config = new JsonObject().put(ApplicationConfig.ENV_PIVEAU_QUARTZ_CONFIG, quartzConfig);
+        return await(vertx.executeBlocking(promise -> new QuartzServiceImpl(vertx, config, jobFactory, launcherService, promise)));
+    }
+
+    /**
+     * A fire journal in a temporary file, removed on exit.
+     */
+    static FireJournal journal() throws IOException {
+        Path path = Files.createTempFile("journal", null);
+        path.toFile().deleteOnExit();
+        return FireJournal.open(path, 65536);
+    }
+
+    /**
+     * Seeds one far future cron trigger per pipe, nothing fires while measuring.
+     */
+    public static void seed(QuartzService service, int pipes) {
+        JsonObject bulk = new JsonObject();
+        for (int i = 0; i < pipes; i++) {
+            bulk.put(pipeId(i), new JsonArray().add(trigger("cron")));
+            if (bulk.size() == SEED_CHUNK || i == pipes - 1) {
+                await(service.bulkCreateOrUpdate(bulk));
+                bulk = new JsonObject();
+            }
+        }
+    }
+
+    public static JsonObject trigger(String type) {
+        JsonObject trigger = new JsonObject()
+                .put("id", type)
+                .put("status", "enabled");
+        switch (type) {
+            case "interval":
+                return trigger
+                        .put("interval", new JsonObject().put("value", 1).put("unit", "DAY"))
+                        .put("next", "2099-01-01T00:00:00Z");
+            case "cron":
+                return trigger.put("cron", "0 0 0 1 1 ? 2099");
+            case "specific":
+                return trigger.put("specific", new JsonArray().add("2099-01-01T00:00:00Z").add("2099-06-01T00:00:00Z"));
+            default:
+                return trigger;
+        }
+    }
+
+    public static void shutdownSchedulers() throws SchedulerException {
+        for (Scheduler scheduler : new ArrayList<>(SchedulerRepository.getInstance().lookupAll())) {
+            scheduler.shutdown(true);
+        }
+    }
+
+    public static <T> T await(Future<T> future) {
+        return future.toCompletionStage().toCompletableFuture().join();
+    }
+
+}
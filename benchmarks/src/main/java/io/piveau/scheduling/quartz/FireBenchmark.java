@@ -0,0 +1,93 @@
+package io.piveau.scheduling.quartz;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.*;
+import org.quartz.Job;
+import org.quartz.JobDetail;
+import org.quartz.JobExecutionContext;
+import org.quartz.impl.JobExecutionContextImpl;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.TriggerFiredBundle;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static io.piveau.scheduling.quartz.BenchmarkSupport.*;
+import static org.quartz.JobBuilder.newJob;
+import static org.quartz.TriggerBuilder.newTrigger;
+
+/**
+ * The fire path as quartz drives it, job creation by the factory and {@link PipeJob#execute}, without the job store.
+ * {@link #fireParsing} is the baseline with the trigger object parsed on every fire, as before launch descriptors were
+ * cached.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FireBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int pipes;
+
+    private Vertx vertx;
+    private VertxJobFactory jobFactory;
+    private TriggerFiredBundle[] bundles;
+    // trigger objects as they were stored before, pretty printed
+    private String[] payloads;
+
+    @Setup
+    public void setup() throws IOException {
+        vertx = Vertx.vertx();
+        JsonObject launchConfig = new JsonObject().put("pipeLimit", Integer.MAX_VALUE).put("globalLimit", Integer.MAX_VALUE);
+        jobFactory = new VertxJobFactory(new LaunchAdmission(vertx, new StubLauncherService(), launchConfig), journal());
+
+        bundles = new TriggerFiredBundle[pipes];
+        payloads = new String[pipes];
+        Date now = new Date();
+        for (int i = 0; i < pipes; i++) {
+            String pipeId = pipeId(i);
+            JsonObject trigger = trigger("cron").put("configs", new JsonObject().put("catalogue", pipeId));
+            JobDetail job = newJob(PipeJob.class).withIdentity(pipeId).build();
+            OperableTrigger operable = (OperableTrigger) newTrigger()
+                    .withIdentity("cron", pipeId)
+                    .usingJobData("triggerObject", trigger.encode())
+                    .usingJobData("triggerVersion", "1")
+                    .forJob(job)
+                    .build();
+            bundles[i] = new TriggerFiredBundle(job, operable, null, false, now, now, null, null);
+            payloads[i] = trigger.encodePrettily();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        vertx.close();
+    }
+
+    @Benchmark
+    public JobExecutionContext fire() throws Exception {
+        TriggerFiredBundle bundle = bundles[ThreadLocalRandom.current().nextInt(pipes)];
+        Job job = jobFactory.newJob(bundle, null);
+        JobExecutionContext context = new JobExecutionContextImpl(null, bundle, job);
+        job.execute(context);
+        return context;
+    }
+
+    @Benchmark
+    public JobExecutionContext fireParsing() throws Exception {
+        int pipe = ThreadLocalRandom.current().nextInt(pipes);
+        TriggerFiredBundle bundle = bundles[pipe];
+        LaunchDescriptor descriptor = LaunchDescriptor.parse(pipeId(pipe), "1", payloads[pipe]);
+        Job job = new PipeJob(jobFactory.admission(), descriptor, jobFactory.journal());
+        JobExecutionContext context = new JobExecutionContextImpl(null, bundle, job);
+        job.execute(context);
+        return context;
+    }
+
+}
@@ -0,0 +1,71 @@
+package io.piveau.scheduling.quartz;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static io.piveau.scheduling.quartz.BenchmarkSupport.*;
+
+/**
+ * Forecast of the next 24 hours. Half of the pipes fire hourly by cron, sharing one expression, the others every 15
+ * minutes by interval, so the histogram counts about 60 fires per pipe.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ForecastBenchmark {
+
+    private static final int SEED_CHUNK = 5000;
+
+    @Param({"1000", "10000", "100000"})
+    public int pipes;
+
+    @Param({"100", "10000"})
+    public int limit;
+
+    private Vertx vertx;
+    private QuartzService service;
+
+    @Setup
+    public void setup() throws Exception {
+        vertx = Vertx.vertx();
+        service = createService(vertx, memoryStore("forecast"));
+
+        String next = Instant.now().plusSeconds(3600).toString();
+        JsonObject bulk = new JsonObject();
+        for (int i = 0; i < pipes; i++) {
+            JsonObject trigger = new JsonObject().put("status", "enabled");
+            if (i % 2 == 0) {
+                trigger.put("id", "cron").put("cron", "0 0 * * * ?");
+            } else {
+                trigger.put("id", "interval")
+                        .put("interval", new JsonObject().put("value", 15).put("unit", "MINUTE"))
+                        .put("next", next);
+            }
+            bulk.put(pipeId(i), new JsonArray().add(trigger));
+            if (bulk.size() == SEED_CHUNK || i == pipes - 1) {
+                await(service.bulkCreateOrUpdate(bulk));
+                bulk = new JsonObject();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        shutdownSchedulers();
+        vertx.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public JsonObject forecast() {
+        return await(service.getForecast(null, null, limit));
+    }
+
+}
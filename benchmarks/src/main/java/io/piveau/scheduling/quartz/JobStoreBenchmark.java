@@ -0,0 +1,77 @@
+package io.piveau.scheduling.quartz;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static io.piveau.scheduling.quartz.BenchmarkSupport.*;
+
+/**
+ * Fires per second of the JDBC and the write-behind RAM job store. Every operation schedules one immediate trigger per
+ * pipe, so the job store has to store, acquire, fire and complete each of them, and waits for all launches.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JobStoreBenchmark {
+
+    private static final int FIRES = 200;
+
+    @Param({"jdbc", "ram"})
+    public String store;
+
+    private Vertx vertx;
+    private QuartzService service;
+    private StubLauncherService launcherService;
+    private Path directory;
+
+    @Setup
+    public void setup() throws Exception {
+        JsonObject quartzConfig;
+        if (store.equals("ram")) {
+            directory = Files.createTempDirectory("ramstore");
+            quartzConfig = new JsonObject().put("jobStore", "ram").put("directory", directory.toString());
+        } else {
+            quartzConfig = memoryStore("jobstore");
+        }
+        vertx = Vertx.vertx();
+        launcherService = new StubLauncherService();
+        JsonObject launchConfig = new JsonObject().put("globalLimit", FIRES).put("pipeLimit", FIRES);
+        service = createService(vertx, quartzConfig, launcherService, launchConfig);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        shutdownSchedulers();
+        vertx.close();
+        if (directory != null) {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FIRES)
+    public long fire() throws InterruptedException {
+        long expected = launcherService.runs() + FIRES;
+        for (int i = 0; i < FIRES; i++) {
+            await(service.createOrUpdateTrigger(pipeId(i), new JsonArray().add(trigger("immediate"))));
+        }
+        while (launcherService.runs() < expected) {
+            Thread.sleep(1);
+        }
+        return launcherService.runs();
+    }
+
+}
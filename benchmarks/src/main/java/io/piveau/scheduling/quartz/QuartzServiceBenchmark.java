@@ -0,0 +1,88 @@
+package io.piveau.scheduling.quartz;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static io.piveau.scheduling.quartz.BenchmarkSupport.*;
+
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class QuartzServiceBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int pipes;
+
+    private Vertx vertx;
+    private QuartzService service;
+
+    @State(Scope.Thread)
+    public static class TriggerType {
+
+        @Param({"interval", "cron", "specific", "immediate"})
+        public String type;
+
+        private JsonObject trigger;
+
+        @Setup
+        public void setup() {
+            trigger = trigger(type);
+        }
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        vertx = Vertx.vertx();
+        service = createService(vertx, memoryStore("service"));
+        seed(service, pipes);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        shutdownSchedulers();
+        vertx.close();
+    }
+
+    private String randomPipe() {
+        return pipeId(ThreadLocalRandom.current().nextInt(pipes));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String createOrUpdateTrigger(TriggerType triggerType) {
+        // the service consumes immediate triggers from the array, a new config every time makes it a real update
+        JsonObject trigger = triggerType.trigger.copy()
+                .put("configs", new JsonObject().put("bench", new JsonObject().put("round", ThreadLocalRandom.current().nextLong())));
+        return await(service.createOrUpdateTrigger(randomPipe(), new JsonArray().add(trigger)));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String unchangedTrigger() {
+        // the seeded trigger again, nothing is written
+        return await(service.createOrUpdateTrigger(randomPipe(), new JsonArray().add(trigger("cron"))));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public JsonArray getTriggers() {
+        return await(service.getTriggers(randomPipe()));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public JsonObject listTriggers() {
+        return await(service.listTriggers(100, randomPipe(), null));
+    }
+
+}
@@ -0,0 +1,46 @@
+package io.piveau.scheduling.quartz;
+
+import io.piveau.scheduling.launcher.LauncherService;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Launcher knowing every pipe and starting every run instantly.
+ */
+public class StubLauncherService implements LauncherService {
+
+    private final AtomicLong runs = new AtomicLong();
+
+    public long runs() {
+        return runs.get();
+    }
+
+    @Override
+    public Future<String> launch(String pipeName, JsonObject configs) {
+        return Future.succeededFuture("run-" + runs.incrementAndGet());
+    }
+
+    @Override
+    public Future<Boolean> isPipeAvailable(String pipeName) {
+        return Future.succeededFuture(true);
+    }
+
+    @Override
+    public Future<JsonObject> getPipe(String pipeName) {
+        return Future.succeededFuture(new JsonObject().put("header", new JsonObject().put("name", pipeName)));
+    }
+
+    @Override
+    public Future<List<JsonObject>> availablePipes() {
+        return Future.succeededFuture(List.of());
+    }
+
+    @Override
+    public Future<List<String>> pipeNames(String prefix) {
+        return Future.succeededFuture(List.of());
+    }
+
+}
@@ -0,0 +1,93 @@
+package io.piveau.scheduling.quartz;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.*;
+import org.quartz.Scheduler;
+import org.quartz.impl.SchedulerRepository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static io.piveau.scheduling.quartz.BenchmarkSupport.*;
+
+/**
+ * Fires per second of a burst, with quartz's SimpleThreadPool and the modes of the {@link ElasticThreadPool}. Every
+ * invocation schedules one immediate trigger per pipe on a standby scheduler, then starts it and waits until all of
+ * them are launched. Both pools get the same number of threads and the same acquisition batch size.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ThreadPoolBenchmark {
+
+    private static final int FIRES = 500;
+    private static final int THREADS = 10;
+    private static final int BATCH_SIZE = 50;
+
+    @Param({"simple", "platform", "worker", "virtual"})
+    public String pool;
+
+    private Vertx vertx;
+    private QuartzService service;
+    private Scheduler scheduler;
+    private StubLauncherService launcherService;
+    private Path directory;
+    private long expected;
+
+    @Setup
+    public void setup() throws Exception {
+        directory = Files.createTempDirectory("ramstore");
+        JsonObject quartzConfig = new JsonObject()
+                .put("jobStore", "ram")
+                .put("directory", directory.toString())
+                .put("properties", new JsonObject().put("org.quartz.scheduler.batchTriggerAcquisitionMaxCount", BATCH_SIZE));
+        if (!pool.equals("simple")) {
+            quartzConfig.put("threadPool", new JsonObject()
+                    .put("mode", pool)
+                    .put("maxThreads", THREADS)
+                    .put("batchSize", BATCH_SIZE));
+        }
+        vertx = Vertx.vertx();
+        launcherService = new StubLauncherService();
+        JsonObject launchConfig = new JsonObject().put("globalLimit", FIRES).put("pipeLimit", FIRES);
+        service = createService(vertx, quartzConfig, launcherService, launchConfig);
+        scheduler = SchedulerRepository.getInstance().lookupAll().iterator().next();
+    }
+
+    @Setup(Level.Invocation)
+    public void burst() throws Exception {
+        scheduler.standby();
+        expected = launcherService.runs() + FIRES;
+        for (int i = 0; i < FIRES; i++) {
+            await(service.createOrUpdateTrigger(pipeId(i), new JsonArray().add(trigger("immediate"))));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        shutdownSchedulers();
+        vertx.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FIRES)
+    public long fire() throws Exception {
+        scheduler.start();
+        while (launcherService.runs() < expected) {
+            Thread.sleep(1);
+        }
+        return launcherService.runs();
+    }
+
+}
@@ -13,5 +13,15 @@ public final class ApplicationConfig {
 
     public static final String ENV_PIVEAU_CLUSTER_CONFIG = "PIVEAU_CLUSTER_CONFIG";
     public static final String ENV_PIVEAU_SHELL_CONFIG = "PIVEAU_SHELL_CONFIG";
+    public static final String ENV_PIVEAU_LAUNCH_CONFIG = "PIVEAU_LAUNCH_CONFIG";
+    public static final String ENV_PIVEAU_QUARTZ_CONFIG = "PIVEAU_QUARTZ_CONFIG";
+    public static final String ENV_PIVEAU_PIPES_CONFIG = "PIVEAU_PIPES_CONFIG";
+
+    // false when the launcher service is bound by someone else, e.g. a fake one in load tests
+    public static final String ENV_PIVEAU_LAUNCHER_ENABLED = "PIVEAU_LAUNCHER_ENABLED";
+    public static final boolean DEFAULT_PIVEAU_LAUNCHER_ENABLED = true;
+
+    public static final String ENV_PIVEAU_TRIGGER_SPREAD = "PIVEAU_TRIGGER_SPREAD";
+    public static final int DEFAULT_PIVEAU_TRIGGER_SPREAD = 0;
 
 }
@@ -0,0 +1,47 @@
+package io.piveau.scheduling;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.*;
+
+/**
+ * Deep, unmodifiable copies of JSON structures, for objects shared between threads or calls. Any attempt to modify
+ * them throws an {@link UnsupportedOperationException}.
+ */
+public final class FrozenJson {
+
+    private FrozenJson() {
+    }
+
+    public static JsonObject freeze(JsonObject json) {
+        return new JsonObject(freeze(json.getMap()));
+    }
+
+    private static Map<String, Object> freeze(Map<String, Object> map) {
+        Map<String, Object> frozen = new LinkedHashMap<>();
+        map.forEach((key, value) -> frozen.put(key, freezeValue(value)));
+        return Collections.unmodifiableMap(frozen);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object freezeValue(Object value) {
+        if (value instanceof JsonObject) {
+            return new JsonObject(freeze(((JsonObject) value).getMap()));
+        } else if (value instanceof Map) {
+            return new JsonObject(freeze((Map<String, Object>) value));
+        } else if (value instanceof JsonArray) {
+            return new JsonArray(freeze(((JsonArray) value).getList()));
+        } else if (value instanceof List) {
+            return new JsonArray(freeze((List<Object>) value));
+        }
+        return value;
+    }
+
+    private static List<Object> freeze(List<Object> list) {
+        List<Object> frozen = new ArrayList<>(list.size());
+        list.forEach(value -> frozen.add(freezeValue(value)));
+        return Collections.unmodifiableList(frozen);
+    }
+
+}
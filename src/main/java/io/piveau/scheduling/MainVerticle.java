@@ -1,15 +1,19 @@
 package io.piveau.scheduling;
 
 import io.piveau.scheduling.launcher.LauncherServiceVerticle;
+import io.piveau.scheduling.metrics.SchedulerMetrics;
 import io.piveau.scheduling.quartz.QuartzService;
 import io.piveau.scheduling.quartz.QuartzServiceVerticle;
 import io.piveau.scheduling.shell.ShellVerticle;
 import io.piveau.utils.ConfigurableAssetHandler;
+import io.prometheus.client.exporter.common.TextFormat;
 import io.vertx.config.ConfigRetriever;
 import io.vertx.config.ConfigRetrieverOptions;
 import io.vertx.config.ConfigStoreOptions;
 import io.vertx.core.*;
+import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerResponse;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.healthchecks.HealthCheckHandler;
@@ -24,8 +28,10 @@ import io.vertx.serviceproxy.ServiceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -34,6 +40,9 @@ import static io.piveau.scheduling.ApplicationConfig.*;
 
 public class MainVerticle extends AbstractVerticle {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int STREAM_PAGE_SIZE = 100;
+
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     private QuartzService quartzService;
@@ -41,12 +50,22 @@ public class MainVerticle extends AbstractVerticle {
 
     @Override
     public void start(Promise<Void> startPromise) {
+        // deployment config first, so env and config files still override it when embedded
+        ConfigStoreOptions deploymentStoreOptions = new ConfigStoreOptions()
+                .setType("json")
+                .setConfig(config());
+
         ConfigStoreOptions envStoreOptions = new ConfigStoreOptions()
                 .setType("env")
                 .setConfig(new JsonObject().put("keys", new JsonArray()
                         .add(ENV_APPLICATION_PORT)
                         .add(ENV_PIVEAU_CLUSTER_CONFIG)
                         .add(ENV_PIVEAU_SHELL_CONFIG)
+                        .add(ENV_PIVEAU_LAUNCH_CONFIG)
+                        .add(ENV_PIVEAU_QUARTZ_CONFIG)
+                        .add(ENV_PIVEAU_PIPES_CONFIG)
+                        .add(ENV_PIVEAU_LAUNCHER_ENABLED)
+                        .add(ENV_PIVEAU_TRIGGER_SPREAD)
                         .add(ENV_PIVEAU_FAVICON_PATH)
                         .add(ENV_PIVEAU_LOGO_PATH)));
 
@@ -69,6 +88,7 @@ public class MainVerticle extends AbstractVerticle {
                                         .put("pattern", "*.properties"))));
 
         ConfigRetriever retriever = ConfigRetriever.create(vertx, new ConfigRetrieverOptions()
+                .addStore(deploymentStoreOptions)
                 .addStore(envStoreOptions)
                 .addStore(fileStoreOptions));
 
@@ -83,6 +103,10 @@ public class MainVerticle extends AbstractVerticle {
                     faviconPath.set(config.getString(ENV_PIVEAU_FAVICON_PATH, DEFAULT_PIVEAU_FAVICON_PATH));
                     logoPath.set(config.getString(ENV_PIVEAU_LOGO_PATH, DEFAULT_PIVEAU_LOGO_PATH));
 
+                    if (!config.getBoolean(ENV_PIVEAU_LAUNCHER_ENABLED, DEFAULT_PIVEAU_LAUNCHER_ENABLED)) {
+                        log.info("Launcher service disabled, using the one bound or registered elsewhere");
+                        return Future.succeededFuture(config);
+                    }
                     Promise<JsonObject> launcherPromise = Promise.promise();
                     vertx.deployVerticle(LauncherServiceVerticle.class, new DeploymentOptions().setWorker(true).setConfig(config))
                             .onSuccess(id -> launcherPromise.complete(config))
@@ -97,7 +121,8 @@ public class MainVerticle extends AbstractVerticle {
                     return CompositeFuture.all(quartzFuture, shellFuture);
                 })
                 .compose(v -> {
-                    quartzService = QuartzService.createProxy(vertx, QuartzService.SERVICE_ADDRESS);
+                    quartzService = SchedulerMetrics.timed(QuartzService.class,
+                            QuartzService.createProxy(vertx, QuartzService.SERVICE_ADDRESS), "quartz");
 
                     return RouterBuilder.create(vertx, "webroot/openapi.yaml");
                 })
@@ -108,8 +133,10 @@ public class MainVerticle extends AbstractVerticle {
                     builder.operation("deleteTriggers").handler(this::handleDeleteTriggers);
                     builder.operation("setTriggerStatus").handler(this::handleSetTriggerStatus);
                     builder.operation("bulkUpdate").handler(this::handleBulkUpdate);
+                    builder.operation("getHistory").handler(this::handleGetHistory);
+                    builder.operation("getForecast").handler(this::handleGetForecast);
 
-                    builder.rootHandler(CorsHandler.create("*").allowedHeader("Content-Type").allowedMethods(Stream.of(HttpMethod.PUT, HttpMethod.GET).collect(Collectors.toSet())));
+                    builder.rootHandler(CorsHandler.create("*").allowedHeader("Content-Type").allowedHeader("If-None-Match").exposedHeader("Link").exposedHeader("ETag").allowedMethods(Stream.of(HttpMethod.PUT, HttpMethod.GET).collect(Collectors.toSet())));
 
                     Router router = builder.createRouter();
 
@@ -127,8 +154,15 @@ public class MainVerticle extends AbstractVerticle {
                             future.fail(bi.cause());
                         }
                     }));
+                    hch.register("scheduler", future -> quartzService.getStatistics()
+                            .onSuccess(statistics -> future.complete(Status.OK(statistics)))
+                            .onFailure(future::fail));
                     router.get("/health").handler(hch);
 
+                    router.get("/metrics").handler(routingContext -> routingContext.response()
+                            .putHeader(HttpHeaders.CONTENT_TYPE, TextFormat.CONTENT_TYPE_004)
+                            .end(SchedulerMetrics.REGISTRY.scrape()));
+
                     vertx.createHttpServer()
                             .requestHandler(router)
                             .listen(config.getInteger(ENV_APPLICATION_PORT, DEFAULT_APPLICATION_PORT))
@@ -139,44 +173,151 @@ public class MainVerticle extends AbstractVerticle {
     }
 
     private void handleListTriggers(RoutingContext routingContext) {
-        quartzService.listTriggers()
-                .onSuccess(result -> routingContext.response().end(result.encodePrettily()))
+        String limitParam = routingContext.queryParams().get("limit");
+        int limit = limitParam != null ? Integer.parseInt(limitParam) : 0;
+        String after = routingContext.queryParams().get("after");
+        String status = routingContext.queryParams().get("status");
+
+        String accept = routingContext.request().getHeader(HttpHeaders.ACCEPT);
+        if (accept != null && accept.contains(NDJSON)) {
+            HttpServerResponse response = routingContext.response()
+                    .setChunked(true)
+                    .putHeader(HttpHeaders.CONTENT_TYPE, NDJSON);
+            streamTriggers(response, limit, after, status);
+            return;
+        }
+
+        conditional(routingContext, null, () -> quartzService.listTriggers(limit, after, status)
+                .onSuccess(result -> {
+                    if (limit > 0 && result.size() == limit) {
+                        String next = "/triggers?limit=" + limit + "&after=" + URLEncoder.encode(lastPipeId(result), StandardCharsets.UTF_8);
+                        if (status != null) {
+                            next += "&status=" + status;
+                        }
+                        routingContext.response().putHeader("Link", "<" + next + ">; rel=\"next\"");
+                    }
+                    routingContext.response().end(result.encodePrettily());
+                })
                 .onFailure(cause -> {
+                    routingContext.response().headers().remove(HttpHeaders.ETAG);
                     if (cause instanceof ServiceException) {
                         ServiceException se = (ServiceException) cause;
                         routingContext.response().setStatusCode(se.failureCode()).end(se.getMessage());
                     } else {
                         routingContext.response().setStatusCode(500).end(cause.getMessage());
                     }
+                }));
+    }
+
+    // the tag is taken before the read, a change in between only costs the client another full read
+    private void conditional(RoutingContext routingContext, String pipeId, Runnable read) {
+        quartzService.getScheduleTag(pipeId)
+                .onSuccess(tag -> {
+                    String etag = "\"" + tag + "\"";
+                    routingContext.response().putHeader(HttpHeaders.ETAG, etag);
+                    if (matches(routingContext.request().getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+                        routingContext.response().setStatusCode(304).end();
+                    } else {
+                        read.run();
+                    }
+                })
+                .onFailure(cause -> read.run());
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*") || candidate.equals(etag) || candidate.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // one pipe per line, the next page is only fetched when the previous one is written
+    private void streamTriggers(HttpServerResponse response, int remaining, String after, String status) {
+        int pageSize = remaining > 0 ? Math.min(remaining, STREAM_PAGE_SIZE) : STREAM_PAGE_SIZE;
+        quartzService.listTriggers(pageSize, after, status)
+                .onSuccess(page -> writeTriggers(response, page, page.fieldNames().iterator(), pageSize, remaining, after, status))
+                .onFailure(cause -> {
+                    log.error("Streaming triggers", cause);
+                    if (response.headWritten()) {
+                        response.reset();
+                    } else {
+                        response.setStatusCode(500).end(cause.getMessage());
+                    }
                 });
     }
 
+    private void writeTriggers(HttpServerResponse response, JsonObject page, Iterator<String> pipeIds, int pageSize, int remaining, String after, String status) {
+        String last = after;
+        while (pipeIds.hasNext()) {
+            if (response.closed()) {
+                return;
+            }
+            if (response.writeQueueFull()) {
+                String current = last;
+                response.drainHandler(v -> writeTriggers(response, page, pipeIds, pageSize, remaining, current, status));
+                return;
+            }
+            last = pipeIds.next();
+            response.write(new JsonObject().put(last, page.getJsonArray(last)).encode() + "\n");
+        }
+        int left = remaining > 0 ? remaining - page.size() : 0;
+        if (page.size() < pageSize || (remaining > 0 && left == 0)) {
+            response.end();
+        } else {
+            streamTriggers(response, left, last, status);
+        }
+    }
+
+    private String lastPipeId(JsonObject triggers) {
+        String last = null;
+        for (String pipeId : triggers.fieldNames()) {
+            last = pipeId;
+        }
+        return last;
+    }
+
     private void handleBulkUpdate(RoutingContext routingContext) {
         JsonObject bulk = routingContext.getBodyAsJson();
 
-        ArrayList<Future<String>> futureList = new ArrayList<>();
-
-        bulk.fieldNames().forEach(name -> {
-            JsonArray triggers = bulk.getJsonArray(name);
-            futureList.add(quartzService.createOrUpdateTrigger(name, triggers));
-        });
-        CompositeFuture.join(new ArrayList<>(futureList))
-                .onSuccess(v -> routingContext.response().end())
-                .onFailure(cause -> routingContext.response().setStatusCode(200).setStatusMessage("Not all triggers were successfully created or updated.").end());
+        quartzService.bulkCreateOrUpdate(bulk)
+                .onSuccess(report -> {
+                    boolean failed = report.stream().anyMatch(entry -> "failed".equals(((JsonObject) entry.getValue()).getString("status")));
+                    if (failed) {
+                        routingContext.response().setStatusMessage("Not all triggers were successfully created or updated.");
+                    }
+                    routingContext.response()
+                            .putHeader(HttpHeaders.CONTENT_TYPE, "application/json")
+                            .end(report.encodePrettily());
+                })
+                .onFailure(cause -> {
+                    if (cause instanceof ServiceException) {
+                        ServiceException se = (ServiceException) cause;
+                        routingContext.response().setStatusCode(se.failureCode()).end(se.getMessage());
+                    } else {
+                        routingContext.response().setStatusCode(500).end(cause.getMessage());
+                    }
+                });
     }
 
     private void handleGetTriggers(RoutingContext routingContext) {
         String pipeId = routingContext.pathParam("pipeId");
-        quartzService.getTriggers(pipeId)
+        conditional(routingContext, pipeId, () -> quartzService.getTriggers(pipeId)
                 .onSuccess(result -> routingContext.response().end(result.encodePrettily()))
                 .onFailure(cause -> {
+                    routingContext.response().headers().remove(HttpHeaders.ETAG);
                     if (cause instanceof ServiceException) {
                         ServiceException se = (ServiceException) cause;
                         routingContext.response().setStatusCode(se.failureCode()).end(se.getMessage());
                     } else {
                         routingContext.response().setStatusCode(500).end(cause.getMessage());
                     }
-                });
+                }));
     }
 
     private void handleCreateOrUpdateTriggers(RoutingContext routingContext) {
@@ -184,7 +325,17 @@ public class MainVerticle extends AbstractVerticle {
         JsonArray triggers = routingContext.getBodyAsJsonArray();
         quartzService.createOrUpdateTrigger(pipeId, triggers)
                 .onSuccess(statusCode -> {
-                    int code = "created".equalsIgnoreCase(statusCode) ? 201 : 200;
+                    int code;
+                    switch (statusCode) {
+                        case "created":
+                            code = 201;
+                            break;
+                        case "unchanged":
+                            code = 204;
+                            break;
+                        default:
+                            code = 200;
+                    }
                     routingContext.response().setStatusCode(code).end();
                 })
                 .onFailure(cause -> {
@@ -230,6 +381,34 @@ public class MainVerticle extends AbstractVerticle {
                 });
     }
 
+    private void handleGetHistory(RoutingContext routingContext) {
+        String pipeId = routingContext.pathParam("pipeId");
+        String limitParam = routingContext.queryParams().get("limit");
+        int limit = limitParam != null ? Integer.parseInt(limitParam) : 100;
+
+        quartzService.getHistory(pipeId, limit)
+                .onSuccess(result -> routingContext.response().end(result.encodePrettily()))
+                .onFailure(cause -> routingContext.response().setStatusCode(500).end(cause.getMessage()));
+    }
+
+    private void handleGetForecast(RoutingContext routingContext) {
+        String from = routingContext.queryParams().get("from");
+        String to = routingContext.queryParams().get("to");
+        String limitParam = routingContext.queryParams().get("limit");
+        int limit = limitParam != null ? Integer.parseInt(limitParam) : 1000;
+
+        quartzService.getForecast(from, to, limit)
+                .onSuccess(result -> routingContext.response().end(result.encodePrettily()))
+                .onFailure(cause -> {
+                    if (cause instanceof ServiceException) {
+                        ServiceException se = (ServiceException) cause;
+                        routingContext.response().setStatusCode(se.failureCode()).end(se.getMessage());
+                    } else {
+                        routingContext.response().setStatusCode(500).end(cause.getMessage());
+                    }
+                });
+    }
+
     public static void main(String[] args) {
         String[] params = Arrays.copyOf(args, args.length + 1);
         params[params.length - 1] = MainVerticle.class.getName();
@@ -13,6 +13,7 @@ import java.util.List;
 @ProxyGen
 public interface LauncherService {
     String SERVICE_ADDRESS = "io.piveau.scheduling.launcher.service";
+    String PIPES_CHANGED_ADDRESS = "io.piveau.scheduling.launcher.pipes.changed";
 
     static LauncherService create(Vertx vertx, PiveauCluster cluster, Handler<AsyncResult<LauncherService>> readyHandler) {
         return new LauncherServiceImpl(vertx, cluster, readyHandler);
@@ -22,6 +23,13 @@ public interface LauncherService {
         return new LauncherServiceVertxEBProxy(vertx, address);
     }
 
+    /**
+     * Calls the service directly while it is deployed in this vertx instance, through the proxy otherwise.
+     */
+    static LauncherService createLocalOrProxy(Vertx vertx, String address) {
+        return new LocalLauncherService(vertx, address);
+    }
+
     Future<String> launch(String pipeName, JsonObject configs);
 
     Future<Boolean> isPipeAvailable(String pipeName);
@@ -30,4 +38,9 @@ public interface LauncherService {
 
     Future<List<JsonObject>> availablePipes();
 
+    /**
+     * Sorted names of all available pipes starting with the prefix, all names if the prefix is null or empty.
+     */
+    Future<List<String>> pipeNames(String prefix);
+
 }
@@ -3,28 +3,45 @@ package io.piveau.scheduling.launcher;
 import io.piveau.pipe.PipeLauncher;
 import io.piveau.pipe.PiveauCluster;
 import io.piveau.pipe.model.ModelKt;
+import io.piveau.pipe.model.Pipe;
+import io.piveau.scheduling.FrozenJson;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonObject;
 
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 public class LauncherServiceImpl implements LauncherService {
 
-    private final PipeLauncher launcher;
+    private final Vertx vertx;
+    private final PiveauCluster cluster;
+
+    // replaced as a whole on reload, calls already running finish with the launcher they started with
+    private volatile PipeLauncher launcher;
+
+    // everything below is built on first use after the pipe set changed
+    private volatile List<String> names;
+    private volatile List<JsonObject> pipes;
+
+    // converted once, shared by all replies and never modified
+    private final Map<String, JsonObject> descriptors = new ConcurrentHashMap<>();
 
     LauncherServiceImpl(Vertx vertx, PiveauCluster cluster, Handler<AsyncResult<LauncherService>> readyHandler) {
+        this.vertx = vertx;
+        this.cluster = cluster;
         launcher = cluster.pipeLauncher(vertx);
         readyHandler.handle(Future.succeededFuture(this));
     }
 
     @Override
     public Future<String> launch(String pipeName, JsonObject configs) {
-        if (launcher.isPipeAvailable(pipeName)) {
-            return launcher.runPipe(pipeName, configs, null);
+        PipeLauncher current = launcher;
+        if (current.isPipeAvailable(pipeName)) {
+            return current.runPipe(pipeName, configs, null);
         } else {
             return Future.failedFuture("Pipe not available.");
         }
@@ -37,8 +54,9 @@ public class LauncherServiceImpl implements LauncherService {
 
     @Override
     public Future<JsonObject> getPipe(String pipeName) {
-        if (launcher.isPipeAvailable(pipeName)) {
-            return Future.succeededFuture(new JsonObject(ModelKt.prettyPrint(launcher.getPipe(pipeName))));
+        PipeLauncher current = launcher;
+        if (current.isPipeAvailable(pipeName)) {
+            return Future.succeededFuture(descriptors.computeIfAbsent(pipeName, name -> descriptor(current.getPipe(name))));
         } else {
             return Future.failedFuture("Pipe not available.");
         }
@@ -46,8 +64,53 @@ public class LauncherServiceImpl implements LauncherService {
 
     @Override
     public Future<List<JsonObject>> availablePipes() {
-        List<JsonObject> list = launcher.availablePipes().stream().map(p -> new JsonObject(ModelKt.prettyPrint(p))).collect(Collectors.toList());
+        List<JsonObject> list = pipes;
+        if (list == null) {
+            list = launcher.availablePipes().stream()
+                    .map(pipe -> descriptors.computeIfAbsent(pipe.getHeader().getName(), name -> descriptor(pipe)))
+                    .collect(Collectors.toUnmodifiableList());
+            pipes = list;
+        }
         return Future.succeededFuture(list);
     }
 
+    @Override
+    public Future<List<String>> pipeNames(String prefix) {
+        List<String> index = names;
+        if (index == null) {
+            index = launcher.availablePipes().stream()
+                    .map(pipe -> pipe.getHeader().getName())
+                    .sorted()
+                    .collect(Collectors.toUnmodifiableList());
+            names = index;
+        }
+        if (prefix == null || prefix.isEmpty()) {
+            return Future.succeededFuture(index);
+        }
+        int from = Collections.binarySearch(index, prefix);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        int to = from;
+        while (to < index.size() && index.get(to).startsWith(prefix)) {
+            to++;
+        }
+        return Future.succeededFuture(index.subList(from, to));
+    }
+
+    /**
+     * Reads all pipe definitions again and swaps the launcher. Only the descriptors of the changed pipes are dropped.
+     * Must run on the context the service is bound on, so no call fills a cache from the previous launcher afterwards.
+     */
+    void reload(Set<String> changed) {
+        launcher = cluster.pipeLauncher(vertx);
+        names = null;
+        pipes = null;
+        descriptors.keySet().removeAll(changed);
+    }
+
+    private static JsonObject descriptor(Pipe pipe) {
+        return FrozenJson.freeze(new JsonObject(ModelKt.prettyPrint(pipe)));
+    }
+
 }
@@ -5,15 +5,24 @@ import io.piveau.pipe.PiveauCluster;
 import io.piveau.scheduling.ApplicationConfig;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.serviceproxy.ServiceBinder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
 public class LauncherServiceVerticle extends AbstractVerticle {
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
+    private PipeWatcher pipeWatcher;
+
     @Override
     public void start(Promise<Void> startPromise) {
         log.debug("Start Launcher Service Verticle");
@@ -24,6 +33,8 @@ public class LauncherServiceVerticle extends AbstractVerticle {
                         LauncherService.create(vertx, cluster, ready -> {
                             if (ready.succeeded()) {
                                 new ServiceBinder(vertx).setAddress(LauncherService.SERVICE_ADDRESS).register(LauncherService.class, ready.result());
+                                LocalLauncherService.bind(vertx, LauncherService.SERVICE_ADDRESS, ready.result());
+                                watchPipes((LauncherServiceImpl) ready.result());
                                 startPromise.complete();
                             } else {
                                 startPromise.fail(ready.cause());
@@ -32,4 +43,31 @@ public class LauncherServiceVerticle extends AbstractVerticle {
                 .onFailure(startPromise::fail);
     }
 
+    @Override
+    public void stop() {
+        LocalLauncherService.unbind(vertx, LauncherService.SERVICE_ADDRESS);
+        if (pipeWatcher != null) {
+            pipeWatcher.close();
+        }
+    }
+
+    // the launcher reads the pipes directory of the working directory, before the one on the class path
+    private void watchPipes(LauncherServiceImpl launcherService) {
+        JsonObject pipesConfig = ConfigHelper.forConfig(config()).forceJsonObject(ApplicationConfig.ENV_PIVEAU_PIPES_CONFIG);
+        Path directory = Paths.get(pipesConfig.getString("directory", "pipes"));
+        if (!pipesConfig.getBoolean("watch", true) || !Files.isDirectory(directory)) {
+            return;
+        }
+        try {
+            // reloads run on the service's context, in between calls filling its caches
+            pipeWatcher = PipeWatcher.start(vertx, directory, pipesConfig.getLong("debounce", 500L), changed ->
+                    context.runOnContext(v -> {
+                        launcherService.reload(changed);
+                        vertx.eventBus().publish(LauncherService.PIPES_CHANGED_ADDRESS, new JsonArray(new ArrayList<>(changed)));
+                    }));
+        } catch (IOException e) {
+            log.error("Watching pipe directory {}", directory, e);
+        }
+    }
+
 }
@@ -0,0 +1,87 @@
+package io.piveau.scheduling.launcher;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Calls a launcher service deployed in the same vertx instance directly, on the context it was bound from, without
+ * copying the arguments through the event bus. Falls back to the proxy while no service is bound, e.g. when the
+ * launcher runs on another node.
+ * <p>
+ * Arguments and results are shared between caller and service and must not be modified. Launch configs are the
+ * frozen configs cached per trigger, modifying them throws.
+ */
+class LocalLauncherService implements LauncherService {
+
+    private static final String LOCAL_MAP = "io.piveau.scheduling.launcher.local";
+
+    private final LocalMap<String, Binding> bindings;
+    private final String address;
+    private final LauncherService proxy;
+
+    LocalLauncherService(Vertx vertx, String address) {
+        this.bindings = vertx.sharedData().getLocalMap(LOCAL_MAP);
+        this.address = address;
+        this.proxy = LauncherService.createProxy(vertx, address);
+    }
+
+    static void bind(Vertx vertx, String address, LauncherService service) {
+        vertx.sharedData().<String, Binding>getLocalMap(LOCAL_MAP).put(address, new Binding(service, vertx.getOrCreateContext()));
+    }
+
+    static void unbind(Vertx vertx, String address) {
+        vertx.sharedData().getLocalMap(LOCAL_MAP).remove(address);
+    }
+
+    @Override
+    public Future<String> launch(String pipeName, JsonObject configs) {
+        return dispatch(service -> service.launch(pipeName, configs));
+    }
+
+    @Override
+    public Future<Boolean> isPipeAvailable(String pipeName) {
+        return dispatch(service -> service.isPipeAvailable(pipeName));
+    }
+
+    @Override
+    public Future<JsonObject> getPipe(String pipeName) {
+        return dispatch(service -> service.getPipe(pipeName));
+    }
+
+    @Override
+    public Future<List<JsonObject>> availablePipes() {
+        return dispatch(LauncherService::availablePipes);
+    }
+
+    @Override
+    public Future<List<String>> pipeNames(String prefix) {
+        return dispatch(service -> service.pipeNames(prefix));
+    }
+
+    private <T> Future<T> dispatch(Function<LauncherService, Future<T>> call) {
+        Binding binding = bindings.get(address);
+        if (binding == null) {
+            return call.apply(proxy);
+        }
+        return Future.future(promise -> binding.context.runOnContext(v -> call.apply(binding.service).onComplete(promise)));
+    }
+
+    private static final class Binding implements Shareable {
+
+        private final LauncherService service;
+        private final Context context;
+
+        private Binding(LauncherService service, Context context) {
+            this.service = service;
+            this.context = context;
+        }
+    }
+
+}
@@ -0,0 +1,217 @@
+package io.piveau.scheduling.launcher;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Watches the pipe directory and reports the names of added, changed and removed pipes. Only files reported by the
+ * file system are read, and only those whose content actually changed count. Events are collected until the directory
+ * has been quiet for the debounce time.
+ * <p>
+ * As long as one of the changed files does not parse, e.g. while it is still being written, nothing is reported.
+ */
+final class PipeWatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(PipeWatcher.class);
+
+    private final Context context;
+    private final Path directory;
+    private final long debounce;
+    private final Handler<Set<String>> changeHandler;
+
+    private final WatchService watchService;
+
+    // pipe name and content digest per file, as of the last report, only touched by ordered blocking code
+    private final Map<Path, PipeFile> files = new HashMap<>();
+
+    private final Set<Path> pending = new HashSet<>();
+    private long timer = -1;
+
+    private PipeWatcher(Vertx vertx, Path directory, long debounce, Handler<Set<String>> changeHandler) throws IOException {
+        this.context = vertx.getOrCreateContext();
+        this.directory = directory;
+        this.debounce = debounce;
+        this.changeHandler = changeHandler;
+        this.watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    /**
+     * Starts watching the directory, the change handler is called on a worker thread.
+     */
+    static PipeWatcher start(Vertx vertx, Path directory, long debounce, Handler<Set<String>> changeHandler) throws IOException {
+        PipeWatcher watcher = new PipeWatcher(vertx, directory, debounce, changeHandler);
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.filter(PipeWatcher::isPipeFile).forEach(path -> {
+                try {
+                    byte[] content = Files.readAllBytes(path);
+                    watcher.files.put(path, new PipeFile(pipeName(path, content), digest(content)));
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Reading pipe file {}", path, e);
+                }
+            });
+        }
+        Thread thread = new Thread(watcher::watch, "pipe-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Watching {} for pipe changes", directory);
+        return watcher;
+    }
+
+    void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.warn("Closing pipe watcher", e);
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                Set<Path> changed = new HashSet<>();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        // events were lost, the directory stands for all files
+                        changed.add(directory);
+                    } else {
+                        changed.add(directory.resolve((Path) event.context()));
+                    }
+                }
+                key.reset();
+                context.runOnContext(v -> schedule(changed));
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            log.debug("Pipe watcher stopped");
+        }
+    }
+
+    private void schedule(Set<Path> changed) {
+        changed.stream().filter(path -> path.equals(directory) || isPipeFile(path)).forEach(pending::add);
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (timer != -1) {
+            context.owner().cancelTimer(timer);
+        }
+        timer = context.owner().setTimer(debounce, id -> {
+            timer = -1;
+            Set<Path> paths = new HashSet<>(pending);
+            pending.clear();
+            context.executeBlocking(promise -> promise.complete(scan(paths)), true, ar -> {
+                if (ar.failed()) {
+                    // retried with the next change
+                    log.warn("Pipe files not reloaded: {}", ar.cause().getMessage());
+                    pending.addAll(paths);
+                }
+            });
+        });
+    }
+
+    private Set<String> scan(Set<Path> changed) {
+        Set<Path> paths = new HashSet<>(changed);
+        if (paths.remove(directory)) {
+            paths.addAll(files.keySet());
+            try (Stream<Path> listing = Files.list(directory)) {
+                listing.filter(PipeWatcher::isPipeFile).forEach(paths::add);
+            } catch (IOException e) {
+                throw new IllegalStateException("Listing " + directory + ": " + e.getMessage(), e);
+            }
+        }
+        Map<Path, PipeFile> updates = new HashMap<>();
+        Set<String> names = new HashSet<>();
+        for (Path path : paths) {
+            PipeFile before = files.get(path);
+            if (!Files.isRegularFile(path)) {
+                if (before != null) {
+                    updates.put(path, null);
+                    names.add(before.name);
+                }
+                continue;
+            }
+            byte[] content;
+            try {
+                content = Files.readAllBytes(path);
+            } catch (IOException e) {
+                throw new IllegalStateException("Reading " + path + ": " + e.getMessage(), e);
+            }
+            String digest = digest(content);
+            if (before == null || !before.digest.equals(digest)) {
+                String name;
+                try {
+                    name = pipeName(path, content);
+                } catch (RuntimeException e) {
+                    throw new IllegalStateException(path + " does not parse: " + e.getMessage(), e);
+                }
+                updates.put(path, new PipeFile(name, digest));
+                names.add(name);
+                if (before != null) {
+                    names.add(before.name);
+                }
+            }
+        }
+        if (!names.isEmpty()) {
+            log.info("Pipes changed: {}", names);
+            changeHandler.handle(names);
+        }
+        updates.forEach((path, file) -> {
+            if (file != null) {
+                files.put(path, file);
+            } else {
+                files.remove(path);
+            }
+        });
+        return names;
+    }
+
+    private static boolean isPipeFile(Path path) {
+        String fileName = path.getFileName().toString();
+        return fileName.endsWith(".json") || fileName.endsWith(".yaml") || fileName.endsWith(".yml");
+    }
+
+    private static String pipeName(Path path, byte[] content) {
+        String text = new String(content, StandardCharsets.UTF_8);
+        JsonObject pipe = path.getFileName().toString().endsWith(".json")
+                ? new JsonObject(text)
+                : new JsonObject(new Yaml().<Map<String, Object>>load(text));
+        String name = pipe.getJsonObject("header").getString("name");
+        if (name == null) {
+            throw new IllegalArgumentException("no pipe name in header");
+        }
+        return name;
+    }
+
+    private static String digest(byte[] content) {
+        try {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class PipeFile {
+        private final String name;
+        private final String digest;
+
+        private PipeFile(String name, String digest) {
+            this.name = name;
+            this.digest = digest;
+        }
+    }
+
+}
@@ -0,0 +1,68 @@
+package io.piveau.scheduling.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import io.vertx.core.Future;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process wide meter registry, scraped by the metrics endpoint. Static, as parts of quartz (e.g. the job store) are
+ * instantiated by quartz itself.
+ */
+public final class SchedulerMetrics {
+
+    public static final PrometheusMeterRegistry REGISTRY = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+
+    private static final Map<List<String>, Timer> TIMERS = new ConcurrentHashMap<>();
+
+    private SchedulerMetrics() {
+    }
+
+    /**
+     * Timer with percentile histogram, registered on first use. Tags must have a small, fixed set of values.
+     */
+    public static Timer timer(String name, String... tags) {
+        List<String> key = new ArrayList<>(tags.length + 1);
+        key.add(name);
+        key.addAll(Arrays.asList(tags));
+        return TIMERS.computeIfAbsent(key, k -> Timer.builder(name)
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(REGISTRY));
+    }
+
+    /**
+     * Wraps a service, timing every future returning method until its future completes. Tagged by transport, as a
+     * service proxy includes the event bus round trip and a local service does not.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T timed(Class<T> type, T service, String serviceName) {
+        String transport = service.getClass().getSimpleName().endsWith("VertxEBProxy") ? "eventbus" : "local";
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Timer.Sample sample = Timer.start(REGISTRY);
+            Object result;
+            try {
+                result = method.invoke(service, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Future) {
+                ((Future<?>) result).onComplete(ar -> sample.stop(timer("scheduler.service.call",
+                        "service", serviceName,
+                        "transport", transport,
+                        "method", method.getName(),
+                        "outcome", ar.succeeded() ? "success" : "failure")));
+            }
+            return result;
+        });
+    }
+
+}
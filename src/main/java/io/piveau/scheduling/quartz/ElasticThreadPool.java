@@ -0,0 +1,226 @@
+package io.piveau.scheduling.quartz;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import org.quartz.SchedulerConfigException;
+import org.quartz.spi.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * Quartz thread pool handing jobs to an executor instead of owning a fixed set of threads. Concurrency is bounded by
+ * permits, which can be resized at runtime through {@link QuartzService#resizeThreadPool(int)}.
+ * <p>
+ * Modes are platform (up to maxThreads threads, created on demand and retired after keepAlive idle milliseconds),
+ * worker (a shared Vert.x worker executor of the context the scheduler is created on, its maxThreads threads cap any
+ * resize) and virtual (one virtual thread per job, on runtimes providing them, platform otherwise).
+ */
+public class ElasticThreadPool implements ThreadPool {
+
+    private static final Map<String, ElasticThreadPool> POOLS = new ConcurrentHashMap<>();
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private String mode = "platform";
+    private int maxThreads = 10;
+    private long keepAlive = 60000;
+
+    private final Permits permits = new Permits();
+    private int poolSize;
+
+    private Executor executor;
+    private Runnable close;
+    private int sizeLimit = Integer.MAX_VALUE;
+
+    private String instanceName = "quartz";
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public void setThreadCount(int threadCount) {
+        this.maxThreads = threadCount;
+    }
+
+    public void setMaxThreads(int maxThreads) {
+        this.maxThreads = maxThreads;
+    }
+
+    public void setKeepAlive(long keepAlive) {
+        this.keepAlive = keepAlive;
+    }
+
+    @Override
+    public void initialize() throws SchedulerConfigException {
+        switch (mode) {
+            case "worker":
+                Context context = Vertx.currentContext();
+                if (context == null) {
+                    throw new SchedulerConfigException("Worker mode needs the scheduler to be created on a Vert.x context");
+                }
+                WorkerExecutor workerExecutor = context.owner().createSharedWorkerExecutor(instanceName + "-jobs", maxThreads);
+                executor = task -> workerExecutor.executeBlocking(promise -> {
+                    task.run();
+                    promise.complete();
+                }, false);
+                close = workerExecutor::close;
+                sizeLimit = maxThreads;
+                break;
+            case "virtual":
+                ExecutorService virtual = virtualThreadExecutor();
+                if (virtual != null) {
+                    executor = virtual;
+                    close = virtual::shutdown;
+                    break;
+                }
+                log.warn("Virtual threads are not available on this runtime, using platform threads");
+                // fall through
+            default:
+                // the permits bound the queue, threads are started on demand and retired when idle
+                ThreadPoolExecutor platform = new ThreadPoolExecutor(maxThreads, maxThreads, keepAlive,
+                        TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), new NamedThreadFactory(instanceName));
+                platform.allowCoreThreadTimeOut(true);
+                executor = platform;
+                close = platform::shutdown;
+        }
+        resize(maxThreads);
+        POOLS.put(instanceName, this);
+    }
+
+    /**
+     * The pool of the scheduler with this name, null if it uses another thread pool.
+     */
+    static ElasticThreadPool of(String schedulerName) {
+        return POOLS.get(schedulerName);
+    }
+
+    /**
+     * Changes the number of jobs allowed to run at once, returning the size in effect. Running jobs are not affected.
+     */
+    public synchronized int resize(int size) {
+        if (size > sizeLimit) {
+            log.warn("Worker mode runs at most {} jobs at once", sizeLimit);
+            size = sizeLimit;
+        }
+        if (executor instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor platform = (ThreadPoolExecutor) executor;
+            if (size > platform.getMaximumPoolSize()) {
+                platform.setMaximumPoolSize(size);
+                platform.setCorePoolSize(size);
+            } else {
+                platform.setCorePoolSize(size);
+                platform.setMaximumPoolSize(size);
+            }
+        }
+        if (size > poolSize) {
+            permits.release(size - poolSize);
+        } else {
+            permits.reduce(poolSize - size);
+        }
+        poolSize = size;
+        return size;
+    }
+
+    @Override
+    public boolean runInThread(Runnable runnable) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    runnable.run();
+                } finally {
+                    permits.release();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            return false;
+        }
+    }
+
+    @Override
+    public int blockForAvailableThreads() {
+        try {
+            permits.acquire();
+            permits.release();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Math.max(permits.availablePermits(), 1);
+    }
+
+    @Override
+    public void shutdown(boolean waitForJobsToComplete) {
+        POOLS.remove(instanceName, this);
+        close.run();
+        if (waitForJobsToComplete && executor instanceof ExecutorService) {
+            try {
+                ((ExecutorService) executor).awaitTermination(keepAlive, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public synchronized int getPoolSize() {
+        return poolSize;
+    }
+
+    @Override
+    public void setInstanceId(String schedInstId) {
+    }
+
+    @Override
+    public void setInstanceName(String schedName) {
+        instanceName = schedName;
+    }
+
+    // compiled for release 11, virtual threads are looked up at runtime
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static final class Permits extends Semaphore {
+
+        private Permits() {
+            super(0);
+        }
+
+        private void reduce(int reduction) {
+            reducePermits(reduction);
+        }
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private int count;
+
+        private NamedThreadFactory(String instanceName) {
+            prefix = instanceName + "_Worker-";
+        }
+
+        @Override
+        public synchronized Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + ++count);
+            thread.setDaemon(false);
+            return thread;
+        }
+    }
+
+}
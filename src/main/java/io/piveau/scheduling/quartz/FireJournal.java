@@ -0,0 +1,190 @@
+package io.piveau.scheduling.quartz;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Journal of the latest fires, kept in a memory mapped ring file of fixed size records. Appending claims the next
+ * sequence number and overwrites the oldest record, the sequence is written last and marks the record as complete.
+ * Queries scan backwards from the newest record.
+ * <p>
+ * Pipe ids, trigger ids and details longer than their fields are truncated.
+ */
+final class FireJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(FireJournal.class);
+
+    private static final int MAGIC = 0x464a4e4c;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 256;
+
+    // record layout, strings are a length byte followed by utf-8
+    private static final int SEQUENCE = 0;
+    private static final int SCHEDULED = 8;
+    private static final int FIRED = 16;
+    private static final int LATENCY = 24;
+    private static final int OUTCOME = 28;
+    private static final int PIPE = 29;
+    private static final int PIPE_LENGTH = 127;
+    private static final int TRIGGER = PIPE + 1 + PIPE_LENGTH;
+    private static final int TRIGGER_LENGTH = 39;
+    private static final int DETAIL = TRIGGER + 1 + TRIGGER_LENGTH;
+    private static final int DETAIL_LENGTH = RECORD_SIZE - DETAIL - 1;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final AtomicLong sequence;
+
+    private FireJournal(FileChannel channel, MappedByteBuffer buffer, int capacity, long last) {
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.sequence = new AtomicLong(last);
+    }
+
+    /**
+     * Opens the journal file, or creates it. A file of another capacity is started over.
+     */
+    static FireJournal open(Path path, int capacity) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = HEADER_SIZE + (long) capacity * RECORD_SIZE;
+        if (channel.size() != size) {
+            if (channel.size() > 0) {
+                log.warn("Fire journal {} does not hold {} records, starting over", path, capacity);
+            }
+            channel.truncate(0);
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        if (buffer.getInt(0) != MAGIC) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, RECORD_SIZE);
+            buffer.putInt(8, capacity);
+        }
+
+        long last = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            last = Math.max(last, buffer.getLong(offset(slot)));
+        }
+        return new FireJournal(channel, buffer, capacity, last);
+    }
+
+    void append(String pipeId, String triggerId, long scheduled, long fired, long latency, boolean success, String detail) {
+        long seq = sequence.incrementAndGet();
+        int offset = offset((int) ((seq - 1) % capacity));
+        ByteBuffer record = buffer.duplicate();
+        record.putLong(offset + SEQUENCE, 0);
+        record.putLong(offset + SCHEDULED, scheduled);
+        record.putLong(offset + FIRED, fired);
+        record.putInt(offset + LATENCY, (int) Math.min(latency, Integer.MAX_VALUE));
+        record.put(offset + OUTCOME, (byte) (success ? 1 : 0));
+        putString(record, offset + PIPE, pipeId, PIPE_LENGTH);
+        putString(record, offset + TRIGGER, triggerId, TRIGGER_LENGTH);
+        putString(record, offset + DETAIL, detail, DETAIL_LENGTH);
+        record.putLong(offset + SEQUENCE, seq);
+    }
+
+    /**
+     * The latest fires of a pipe, newest first.
+     */
+    JsonArray history(String pipeId, int limit) {
+        byte[] pipe = truncate(pipeId, PIPE_LENGTH);
+        JsonArray history = new JsonArray();
+        long last = sequence.get();
+        for (long seq = last; seq > Math.max(0, last - capacity) && (limit <= 0 || history.size() < limit); seq--) {
+            int offset = offset((int) ((seq - 1) % capacity));
+            if (buffer.getLong(offset + SEQUENCE) != seq || !matches(offset + PIPE, pipe)) {
+                continue;
+            }
+            boolean success = buffer.get(offset + OUTCOME) == 1;
+            JsonObject entry = new JsonObject()
+                    .put("triggerId", getString(offset + TRIGGER))
+                    .put("fired", format(buffer.getLong(offset + FIRED)))
+                    .put("latency", buffer.getInt(offset + LATENCY))
+                    .put("outcome", success ? "success" : "failure")
+                    .put(success ? "runId" : "reason", getString(offset + DETAIL));
+            long scheduled = buffer.getLong(offset + SCHEDULED);
+            if (scheduled > 0) {
+                entry.put("scheduled", format(scheduled));
+            }
+            // overwritten while reading
+            if (buffer.getLong(offset + SEQUENCE) == seq) {
+                history.add(entry);
+            }
+        }
+        return history;
+    }
+
+    void close() {
+        buffer.force();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Closing fire journal", e);
+        }
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * RECORD_SIZE;
+    }
+
+    private static void putString(ByteBuffer record, int offset, String value, int maxLength) {
+        byte[] bytes = truncate(value, maxLength);
+        record.put(offset, (byte) bytes.length);
+        record.position(offset + 1);
+        record.put(bytes);
+    }
+
+    private String getString(int offset) {
+        byte[] bytes = new byte[buffer.get(offset) & 0xff];
+        ByteBuffer record = buffer.duplicate();
+        record.position(offset + 1);
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private boolean matches(int offset, byte[] value) {
+        if ((buffer.get(offset) & 0xff) != value.length) {
+            return false;
+        }
+        for (int i = 0; i < value.length; i++) {
+            if (buffer.get(offset + 1 + i) != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] truncate(String value, int maxLength) {
+        byte[] bytes = value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        if (bytes.length <= maxLength) {
+            return bytes;
+        }
+        byte[] truncated = new byte[maxLength];
+        System.arraycopy(bytes, 0, truncated, 0, maxLength);
+        return truncated;
+    }
+
+    private static String format(long time) {
+        return Instant.ofEpochMilli(time).atZone(ZoneId.systemDefault()).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+    }
+
+}
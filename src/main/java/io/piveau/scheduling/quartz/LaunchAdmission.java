@@ -0,0 +1,258 @@
+package io.piveau.scheduling.quartz;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.piveau.scheduling.metrics.SchedulerMetrics;
+import io.piveau.scheduling.launcher.LauncherService;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.quartz.Trigger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission between fired jobs and the launcher service. Bounds the number of launches in flight, globally and per
+ * pipe, and holds back everything else in a bounded wait queue. Waiting launches start by trigger priority, in the
+ * order they arrived within the same priority.
+ * <p>
+ * Deferred launches are bounded as well, by the number waiting for a retry and the retries per launch. Launches beyond
+ * either limit are dropped.
+ */
+class LaunchAdmission {
+
+    enum Overflow {
+        DROP, DEFER, COALESCE
+    }
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Vertx vertx;
+    private final LauncherService launcherService;
+    private final RunTracker runs;
+
+    private final int globalLimit;
+    private final int pipeLimit;
+    private final int queueSize;
+    private final Overflow overflow;
+    private final long deferDelay;
+    private final int deferLimit;
+    private final int deferRetries;
+
+    private int inFlight;
+    private final Map<String, Integer> inFlightPerPipe = new HashMap<>();
+    private final NavigableSet<Pending> queue = new TreeSet<>();
+    private long arrivals;
+    private int deferredWaiting;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+    private final Map<String, Timer> waitTimers = new LinkedHashMap<>();
+    // not tagged by pipe, one histogram per pipe would be too many series
+    private final Timer launchSucceeded = SchedulerMetrics.timer("scheduler.launch.latency", "outcome", "success");
+    private final Timer launchFailed = SchedulerMetrics.timer("scheduler.launch.latency", "outcome", "failure");
+    // not tagged by pipe either, the failures of a pipe are in its fire journal (/triggers/{pipeId}/history)
+    private final Counter launchFailures = SchedulerMetrics.REGISTRY.counter("scheduler.launch.failures");
+
+    LaunchAdmission(Vertx vertx, LauncherService launcherService, JsonObject config) {
+        this.vertx = vertx;
+        this.launcherService = launcherService;
+        runs = new RunTracker(vertx, config);
+        globalLimit = config.getInteger("globalLimit", 32);
+        pipeLimit = config.getInteger("pipeLimit", 1);
+        queueSize = config.getInteger("queueSize", 10000);
+        overflow = Overflow.valueOf(config.getString("overflow", "coalesce").toUpperCase());
+        deferDelay = config.getLong("deferDelay", 1000L);
+        deferLimit = config.getInteger("deferLimit", 1000);
+        deferRetries = config.getInteger("deferRetries", 3);
+        for (String priorityClass : List.of("high", "normal", "low")) {
+            waitTimers.put(priorityClass, SchedulerMetrics.timer("scheduler.launch.wait", "priority", priorityClass));
+            Gauge.builder("scheduler.launch.queue", this, admission -> admission.queueDepth(priorityClass))
+                    .tag("priority", priorityClass)
+                    .register(SchedulerMetrics.REGISTRY);
+        }
+    }
+
+    Future<String> launch(String pipeName, JsonObject configs, int priority) {
+        return launch(new Pending(pipeName, configs, priority));
+    }
+
+    private Future<String> launch(Pending pending) {
+        String pipeName = pending.pipeName;
+        synchronized (this) {
+            // anything still queued is waiting for its own pipe, see release
+            if (hasCapacity(pipeName)) {
+                acquire(pipeName);
+            } else if (queue.size() < queueSize) {
+                pending.arrival = ++arrivals;
+                queue.add(pending);
+                queued.increment();
+                return pending.promise.future();
+            } else {
+                return overflow(pending);
+            }
+        }
+        start(pending);
+        return pending.promise.future();
+    }
+
+    RunTracker runs() {
+        return runs;
+    }
+
+    synchronized JsonObject statistics() {
+        long count = waitCount.sum();
+        JsonObject byPriority = new JsonObject();
+        waitTimers.forEach((priorityClass, timer) -> byPriority.put(priorityClass, new JsonObject()
+                .put("count", timer.count())
+                .put("waitTimeAvgMillis", (long) timer.mean(TimeUnit.MILLISECONDS))
+                .put("waitTimeMaxMillis", (long) timer.max(TimeUnit.MILLISECONDS))));
+        return new JsonObject()
+                .put("inFlight", inFlight)
+                .put("queueDepth", queue.size())
+                .put("admitted", admitted.sum())
+                .put("queued", queued.sum())
+                .put("dropped", dropped.sum())
+                .put("deferred", deferred.sum())
+                .put("deferredWaiting", deferredWaiting)
+                .put("coalesced", coalesced.sum())
+                .put("waitTimeAvgMillis", count > 0 ? TimeUnit.NANOSECONDS.toMillis(waitNanos.sum() / count) : 0)
+                .put("waitTimeMaxMillis", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()))
+                .put("waitTimeByPriority", byPriority);
+    }
+
+    // called with the monitor held
+    private Future<String> overflow(Pending pending) {
+        switch (overflow) {
+            case COALESCE:
+                for (Pending waiting : queue) {
+                    if (waiting.pipeName.equals(pending.pipeName)) {
+                        coalesced.increment();
+                        return waiting.promise.future();
+                    }
+                }
+                break;
+            case DEFER:
+                if (deferredWaiting < deferLimit && pending.retries < deferRetries) {
+                    deferredWaiting++;
+                    pending.retries++;
+                    deferred.increment();
+                    vertx.setTimer(deferDelay, id -> {
+                        synchronized (this) {
+                            deferredWaiting--;
+                        }
+                        launch(pending);
+                    });
+                    return pending.promise.future();
+                }
+                break;
+            default:
+        }
+        dropped.increment();
+        log.warn("Launch queue full, dropping fire of pipe {}", pending.pipeName);
+        // a deferred launch has handed out its future already
+        pending.promise.fail("Launch queue full");
+        return pending.promise.future();
+    }
+
+    private void start(Pending pending) {
+        admitted.increment();
+        long wait = System.nanoTime() - pending.queuedAt;
+        waitCount.increment();
+        waitNanos.add(wait);
+        maxWaitNanos.accumulate(wait);
+        waitTimers.get(priorityClass(pending.priority)).record(wait, TimeUnit.NANOSECONDS);
+        Timer.Sample sample = Timer.start(SchedulerMetrics.REGISTRY);
+        launcherService.launch(pending.pipeName, pending.configs)
+                .onComplete(ar -> {
+                    sample.stop(ar.succeeded() ? launchSucceeded : launchFailed);
+                    if (ar.failed()) {
+                        launchFailures.increment();
+                    }
+                    release(pending.pipeName);
+                    pending.promise.handle(ar);
+                });
+    }
+
+    private void release(String pipeName) {
+        List<Pending> next = new ArrayList<>();
+        synchronized (this) {
+            inFlight--;
+            inFlightPerPipe.computeIfPresent(pipeName, (name, count) -> count > 1 ? count - 1 : null);
+
+            Iterator<Pending> iterator = queue.iterator();
+            while (iterator.hasNext() && inFlight < globalLimit) {
+                Pending pending = iterator.next();
+                if (hasCapacity(pending.pipeName)) {
+                    iterator.remove();
+                    acquire(pending.pipeName);
+                    next.add(pending);
+                }
+            }
+        }
+        next.forEach(this::start);
+    }
+
+    private boolean hasCapacity(String pipeName) {
+        return inFlight < globalLimit && inFlightPerPipe.getOrDefault(pipeName, 0) < pipeLimit;
+    }
+
+    private void acquire(String pipeName) {
+        inFlight++;
+        inFlightPerPipe.merge(pipeName, 1, Integer::sum);
+    }
+
+    // relative to quartz's default trigger priority
+    private synchronized int queueDepth(String priorityClass) {
+        int depth = 0;
+        for (Pending waiting : queue) {
+            if (priorityClass(waiting.priority).equals(priorityClass)) {
+                depth++;
+            }
+        }
+        return depth;
+    }
+
+    private static String priorityClass(int priority) {
+        if (priority > Trigger.DEFAULT_PRIORITY) {
+            return "high";
+        }
+        return priority == Trigger.DEFAULT_PRIORITY ? "normal" : "low";
+    }
+
+    private static final class Pending implements Comparable<Pending> {
+        private final String pipeName;
+        private final JsonObject configs;
+        private final int priority;
+        private final Promise<String> promise = Promise.promise();
+        private final long queuedAt = System.nanoTime();
+        private long arrival;
+        private int retries;
+
+        private Pending(String pipeName, JsonObject configs, int priority) {
+            this.pipeName = pipeName;
+            this.configs = configs;
+            this.priority = priority;
+        }
+
+        @Override
+        public int compareTo(Pending other) {
+            int byPriority = Integer.compare(other.priority, priority);
+            return byPriority != 0 ? byPriority : Long.compare(arrival, other.arrival);
+        }
+    }
+
+}
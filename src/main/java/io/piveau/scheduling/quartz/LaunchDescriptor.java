@@ -0,0 +1,53 @@
+package io.piveau.scheduling.quartz;
+
+import io.piveau.scheduling.FrozenJson;
+import io.vertx.core.json.JsonObject;
+import org.quartz.Trigger;
+
+/**
+ * Everything needed to launch a pipe for a trigger, parsed once from the stored trigger object.
+ * Immutable, the configs are frozen as they are shared between fires.
+ */
+final class LaunchDescriptor {
+
+    private final String pipeName;
+    private final String version;
+    private final JsonObject configs;
+    private final int priority;
+    private final RunTracker.Overlap overlap;
+
+    private LaunchDescriptor(String pipeName, String version, JsonObject configs, int priority, RunTracker.Overlap overlap) {
+        this.pipeName = pipeName;
+        this.version = version;
+        this.configs = configs;
+        this.priority = priority;
+        this.overlap = overlap;
+    }
+
+    static LaunchDescriptor parse(String pipeName, String version, String triggerObject) {
+        JsonObject trigger = triggerObject != null ? new JsonObject(triggerObject) : new JsonObject();
+        return new LaunchDescriptor(pipeName, version, FrozenJson.freeze(trigger.getJsonObject("configs", new JsonObject())),
+                trigger.getInteger("priority", Trigger.DEFAULT_PRIORITY), RunTracker.Overlap.parse(trigger.getString("overlap")));
+    }
+
+    String getPipeName() {
+        return pipeName;
+    }
+
+    String getVersion() {
+        return version;
+    }
+
+    JsonObject getConfigs() {
+        return configs;
+    }
+
+    int getPriority() {
+        return priority;
+    }
+
+    RunTracker.Overlap getOverlap() {
+        return overlap;
+    }
+
+}
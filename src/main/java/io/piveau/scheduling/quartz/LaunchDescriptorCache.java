@@ -0,0 +1,60 @@
+package io.piveau.scheduling.quartz;
+
+import org.quartz.JobDataMap;
+import org.quartz.JobKey;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+import org.quartz.listeners.SchedulerListenerSupport;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Launch descriptors by pipe and trigger name. An entry is reused as long as the version stored with the trigger matches,
+ * so the fire path only parses a trigger object after it has been created or changed.
+ */
+class LaunchDescriptorCache extends SchedulerListenerSupport {
+
+    private final Map<String, Map<String, LaunchDescriptor>> descriptors = new ConcurrentHashMap<>();
+
+    LaunchDescriptor get(TriggerKey triggerKey, String pipeName, JobDataMap triggerData) {
+        String version = triggerData.getString("triggerVersion");
+        Map<String, LaunchDescriptor> group = descriptors.computeIfAbsent(triggerKey.getGroup(), k -> new ConcurrentHashMap<>());
+        LaunchDescriptor descriptor = group.get(triggerKey.getName());
+        if (descriptor == null || !Objects.equals(descriptor.getVersion(), version)) {
+            descriptor = LaunchDescriptor.parse(pipeName, version, triggerData.getString("triggerObject"));
+            group.put(triggerKey.getName(), descriptor);
+        }
+        return descriptor;
+    }
+
+    @Override
+    public void jobUnscheduled(TriggerKey triggerKey) {
+        remove(triggerKey);
+    }
+
+    @Override
+    public void triggerFinalized(Trigger trigger) {
+        remove(trigger.getKey());
+    }
+
+    @Override
+    public void jobDeleted(JobKey jobKey) {
+        // jobs and trigger groups are both named after the pipe id
+        descriptors.remove(jobKey.getGroup());
+    }
+
+    @Override
+    public void schedulingDataCleared() {
+        descriptors.clear();
+    }
+
+    private void remove(TriggerKey triggerKey) {
+        Map<String, LaunchDescriptor> group = descriptors.get(triggerKey.getGroup());
+        if (group != null) {
+            group.remove(triggerKey.getName());
+        }
+    }
+
+}
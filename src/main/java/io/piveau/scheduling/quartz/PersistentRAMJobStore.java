@@ -0,0 +1,537 @@
+package io.piveau.scheduling.quartz;
+
+import io.micrometer.core.instrument.Timer;
+import io.piveau.scheduling.metrics.SchedulerMetrics;
+import org.quartz.*;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.simpl.RAMJobStore;
+import org.quartz.spi.ClassLoadHelper;
+import org.quartz.spi.OperableTrigger;
+import org.quartz.spi.SchedulerSignaler;
+import org.quartz.spi.TriggerFiredResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * RAMJobStore persisting its state write-behind. Mutations only mark the touched job dirty, a writer thread appends
+ * the current state of every dirty job to a change log each flush interval, and compacts the log into a snapshot once
+ * it grows beyond the compaction threshold. Snapshot and log are replayed on startup.
+ * <p>
+ * A crash loses at most one flush interval. Calendars are not persisted, and misfire handling is simply applied again
+ * after recovery.
+ */
+public class PersistentRAMJobStore extends RAMJobStore {
+
+    private static final String SNAPSHOT = "snapshot";
+    private static final String SEGMENT_PREFIX = "log-";
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private String directory = "./db/ramstore";
+    private long flushInterval = 1000;
+    private int compactThreshold = 100000;
+
+    private final Set<JobKey> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean groupsDirty = new AtomicBoolean();
+    private final AtomicBoolean cleared = new AtomicBoolean();
+
+    private final Timer flushTimer = SchedulerMetrics.timer("scheduler.jobstore.flush");
+
+    private ClassLoadHelper loadHelper;
+    private ScheduledExecutorService writer;
+    private Path path;
+    private FileChannel segment;
+    private long segmentNumber;
+    private long recordsSinceSnapshot;
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public void setCompactThreshold(int compactThreshold) {
+        this.compactThreshold = compactThreshold;
+    }
+
+    @Override
+    public void initialize(ClassLoadHelper loadHelper, SchedulerSignaler signaler) {
+        super.initialize(loadHelper, signaler);
+        this.loadHelper = loadHelper;
+        path = Paths.get(directory);
+        try {
+            Files.createDirectories(path);
+            recover();
+            compact();
+        } catch (IOException | JobPersistenceException e) {
+            throw new IllegalStateException("Recovering job store from " + path, e);
+        }
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ram-job-store-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::flushQuietly, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void shutdown() {
+        if (writer != null) {
+            writer.shutdown();
+            try {
+                writer.awaitTermination(flushInterval * 2, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flushQuietly();
+            try {
+                segment.close();
+            } catch (IOException e) {
+                log.error("Closing job store log", e);
+            }
+        }
+        super.shutdown();
+    }
+
+    @Override
+    public boolean supportsPersistence() {
+        return true;
+    }
+
+    // mutations, each marks what it touched after the fact
+
+    @Override
+    public void clearAllSchedulingData() throws JobPersistenceException {
+        super.clearAllSchedulingData();
+        cleared.set(true);
+        groupsDirty.set(true);
+    }
+
+    @Override
+    public void storeJob(JobDetail newJob, boolean replaceExisting) throws ObjectAlreadyExistsException {
+        super.storeJob(newJob, replaceExisting);
+        dirty.add(newJob.getKey());
+    }
+
+    @Override
+    public boolean removeJob(JobKey jobKey) {
+        boolean removed = super.removeJob(jobKey);
+        dirty.add(jobKey);
+        return removed;
+    }
+
+    @Override
+    public void storeTrigger(OperableTrigger newTrigger, boolean replaceExisting) throws JobPersistenceException {
+        super.storeTrigger(newTrigger, replaceExisting);
+        dirty.add(newTrigger.getJobKey());
+    }
+
+    @Override
+    public boolean removeTrigger(TriggerKey triggerKey) {
+        markJobOf(triggerKey);
+        return super.removeTrigger(triggerKey);
+    }
+
+    @Override
+    public boolean replaceTrigger(TriggerKey triggerKey, OperableTrigger newTrigger) throws JobPersistenceException {
+        markJobOf(triggerKey);
+        boolean replaced = super.replaceTrigger(triggerKey, newTrigger);
+        dirty.add(newTrigger.getJobKey());
+        return replaced;
+    }
+
+    @Override
+    public void resetTriggerFromErrorState(TriggerKey triggerKey) throws JobPersistenceException {
+        super.resetTriggerFromErrorState(triggerKey);
+        markJobOf(triggerKey);
+    }
+
+    @Override
+    public void pauseTrigger(TriggerKey triggerKey) {
+        super.pauseTrigger(triggerKey);
+        markJobOf(triggerKey);
+    }
+
+    @Override
+    public void resumeTrigger(TriggerKey triggerKey) {
+        super.resumeTrigger(triggerKey);
+        markJobOf(triggerKey);
+    }
+
+    @Override
+    public List<String> pauseTriggers(GroupMatcher<TriggerKey> matcher) {
+        List<String> groups = super.pauseTriggers(matcher);
+        markTriggerGroups(groups);
+        return groups;
+    }
+
+    @Override
+    public List<String> resumeTriggers(GroupMatcher<TriggerKey> matcher) {
+        List<String> groups = super.resumeTriggers(matcher);
+        markTriggerGroups(groups);
+        return groups;
+    }
+
+    @Override
+    public void pauseJob(JobKey jobKey) {
+        super.pauseJob(jobKey);
+        dirty.add(jobKey);
+    }
+
+    @Override
+    public void resumeJob(JobKey jobKey) {
+        super.resumeJob(jobKey);
+        dirty.add(jobKey);
+    }
+
+    @Override
+    public List<String> pauseJobs(GroupMatcher<JobKey> matcher) {
+        List<String> groups = super.pauseJobs(matcher);
+        groups.forEach(group -> dirty.addAll(getJobKeys(GroupMatcher.jobGroupEquals(group))));
+        groupsDirty.set(true);
+        return groups;
+    }
+
+    @Override
+    public Collection<String> resumeJobs(GroupMatcher<JobKey> matcher) {
+        Collection<String> groups = super.resumeJobs(matcher);
+        groups.forEach(group -> dirty.addAll(getJobKeys(GroupMatcher.jobGroupEquals(group))));
+        groupsDirty.set(true);
+        return groups;
+    }
+
+    @Override
+    public void pauseAll() {
+        super.pauseAll();
+        markTriggerGroups(getTriggerGroupNames());
+    }
+
+    @Override
+    public void resumeAll() {
+        super.resumeAll();
+        markTriggerGroups(getTriggerGroupNames());
+    }
+
+    @Override
+    public List<TriggerFiredResult> triggersFired(List<OperableTrigger> firedTriggers) {
+        List<TriggerFiredResult> results = super.triggersFired(firedTriggers);
+        firedTriggers.forEach(trigger -> dirty.add(trigger.getJobKey()));
+        return results;
+    }
+
+    @Override
+    public void triggeredJobComplete(OperableTrigger trigger, JobDetail jobDetail, Trigger.CompletedExecutionInstruction triggerInstCode) {
+        super.triggeredJobComplete(trigger, jobDetail, triggerInstCode);
+        dirty.add(jobDetail.getKey());
+    }
+
+    private void markJobOf(TriggerKey triggerKey) {
+        OperableTrigger trigger = retrieveTrigger(triggerKey);
+        if (trigger != null) {
+            dirty.add(trigger.getJobKey());
+        }
+    }
+
+    private void markTriggerGroups(Collection<String> groups) {
+        for (String group : groups) {
+            getTriggerKeys(GroupMatcher.triggerGroupEquals(group)).forEach(this::markJobOf);
+        }
+        groupsDirty.set(true);
+    }
+
+    // writer thread
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Writing job store log", e);
+        }
+    }
+
+    private synchronized void flush() throws IOException, JobPersistenceException {
+        if (!cleared.get() && !groupsDirty.get() && dirty.isEmpty()) {
+            return;
+        }
+        Timer.Sample sample = Timer.start(SchedulerMetrics.REGISTRY);
+        if (cleared.getAndSet(false)) {
+            append(segment, Record.clear());
+        }
+        if (groupsDirty.getAndSet(false)) {
+            append(segment, groups());
+        }
+        Iterator<JobKey> iterator = dirty.iterator();
+        while (iterator.hasNext()) {
+            JobKey jobKey = iterator.next();
+            // removed before reading, a mutation after the read marks it again
+            iterator.remove();
+            append(segment, job(jobKey));
+        }
+        segment.force(false);
+        sample.stop(flushTimer);
+
+        if (recordsSinceSnapshot > compactThreshold) {
+            compact();
+        }
+    }
+
+    /**
+     * Starts a new log segment and writes a snapshot of the whole store, replacing the snapshot and all older segments.
+     * Changes racing with the snapshot land in the new segment and are replayed on top of it.
+     */
+    private synchronized void compact() throws IOException, JobPersistenceException {
+        if (segment != null) {
+            segment.close();
+        }
+        segmentNumber++;
+        segment = FileChannel.open(path.resolve(segmentName(segmentNumber)),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+
+        Path temporary = path.resolve(SNAPSHOT + ".tmp");
+        try (FileChannel snapshot = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            snapshot.write(ByteBuffer.allocate(Long.BYTES).putLong(0, segmentNumber));
+            append(snapshot, groups());
+            for (String group : getJobGroupNames()) {
+                for (JobKey jobKey : getJobKeys(GroupMatcher.jobGroupEquals(group))) {
+                    append(snapshot, job(jobKey));
+                }
+            }
+            snapshot.force(true);
+        }
+        Files.move(temporary, path.resolve(SNAPSHOT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        recordsSinceSnapshot = 0;
+
+        for (long number : segmentNumbers()) {
+            if (number < segmentNumber) {
+                Files.deleteIfExists(path.resolve(segmentName(number)));
+            }
+        }
+    }
+
+    private Record job(JobKey jobKey) throws JobPersistenceException {
+        JobDetail job = retrieveJob(jobKey);
+        if (job == null) {
+            return Record.delete(jobKey);
+        }
+        List<OperableTrigger> triggers = getTriggersForJob(jobKey);
+        List<TriggerKey> paused = new ArrayList<>();
+        for (OperableTrigger trigger : triggers) {
+            Trigger.TriggerState state = getTriggerState(trigger.getKey());
+            if (state == Trigger.TriggerState.PAUSED) {
+                paused.add(trigger.getKey());
+            }
+        }
+        return Record.job(job, triggers, paused);
+    }
+
+    private Record groups() {
+        synchronized (lock) {
+            return Record.groups(new HashSet<>(pausedTriggerGroups), new HashSet<>(pausedJobGroups));
+        }
+    }
+
+    private void append(FileChannel channel, Record record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(record);
+        }
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + Long.BYTES + payload.length);
+        buffer.putInt(payload.length).putLong(crc.getValue()).put(payload).flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        recordsSinceSnapshot++;
+    }
+
+    // recovery
+
+    private void recover() throws IOException, JobPersistenceException {
+        Replay replay = new Replay();
+        long firstSegment = 0;
+
+        Path snapshot = path.resolve(SNAPSHOT);
+        if (Files.exists(snapshot)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+                firstSegment = in.readLong();
+                replay.apply(in);
+            }
+        }
+        for (long number : segmentNumbers()) {
+            segmentNumber = Math.max(segmentNumber, number);
+            if (number >= firstSegment) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path.resolve(segmentName(number)))))) {
+                    replay.apply(in);
+                }
+            }
+        }
+
+        if (replay.groups != null) {
+            synchronized (lock) {
+                pausedTriggerGroups.addAll(replay.groups.pausedTriggerGroups);
+                pausedJobGroups.addAll(replay.groups.pausedJobGroups);
+            }
+        }
+        for (Record record : replay.jobs.values()) {
+            super.storeJob(record.job, true);
+            for (OperableTrigger trigger : record.triggers) {
+                super.storeTrigger(trigger, true);
+            }
+            record.paused.forEach(super::pauseTrigger);
+        }
+        dirty.clear();
+        if (!replay.jobs.isEmpty()) {
+            log.info("Recovered {} jobs from {}", replay.jobs.size(), path);
+        }
+    }
+
+    /**
+     * Reads the next record, or null at the end of the file or at a torn record written during a crash.
+     */
+    private Record read(DataInputStream in) throws IOException {
+        int length;
+        long checksum;
+        byte[] payload;
+        try {
+            length = in.readInt();
+            checksum = in.readLong();
+            if (length <= 0 || length > MAX_RECORD_SIZE) {
+                log.warn("Skipping torn record at the end of the job store log");
+                return null;
+            }
+            payload = new byte[length];
+            in.readFully(payload);
+        } catch (EOFException e) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        if (crc.getValue() != checksum) {
+            log.warn("Skipping torn record at the end of the job store log");
+            return null;
+        }
+        try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(payload)) {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+                try {
+                    return loadHelper.loadClass(desc.getName());
+                } catch (ClassNotFoundException e) {
+                    return super.resolveClass(desc);
+                }
+            }
+        }) {
+            return (Record) objects.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private List<Long> segmentNumbers() throws IOException {
+        try (Stream<Path> files = Files.list(path)) {
+            List<Long> numbers = new ArrayList<>();
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX))
+                    .forEach(name -> numbers.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length()))));
+            Collections.sort(numbers);
+            return numbers;
+        }
+    }
+
+    private static String segmentName(long number) {
+        return String.format("%s%010d", SEGMENT_PREFIX, number);
+    }
+
+    private final class Replay {
+
+        private final Map<JobKey, Record> jobs = new LinkedHashMap<>();
+        private Record groups;
+
+        private void apply(DataInputStream in) throws IOException {
+            for (Record record = read(in); record != null; record = read(in)) {
+                switch (record.type) {
+                    case CLEAR:
+                        jobs.clear();
+                        groups = null;
+                        break;
+                    case GROUPS:
+                        groups = record;
+                        break;
+                    case DELETE:
+                        jobs.remove(record.jobKey);
+                        break;
+                    default:
+                        jobs.put(record.jobKey, record);
+                }
+            }
+        }
+    }
+
+    private static final class Record implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        enum Type {
+            JOB, DELETE, GROUPS, CLEAR
+        }
+
+        private Type type;
+        private JobKey jobKey;
+        private JobDetail job;
+        private List<OperableTrigger> triggers;
+        private List<TriggerKey> paused;
+        private Set<String> pausedTriggerGroups;
+        private Set<String> pausedJobGroups;
+
+        private static Record job(JobDetail job, List<OperableTrigger> triggers, List<TriggerKey> paused) {
+            Record record = new Record();
+            record.type = Type.JOB;
+            record.jobKey = job.getKey();
+            record.job = job;
+            record.triggers = triggers;
+            record.paused = paused;
+            return record;
+        }
+
+        private static Record delete(JobKey jobKey) {
+            Record record = new Record();
+            record.type = Type.DELETE;
+            record.jobKey = jobKey;
+            return record;
+        }
+
+        private static Record groups(Set<String> pausedTriggerGroups, Set<String> pausedJobGroups) {
+            Record record = new Record();
+            record.type = Type.GROUPS;
+            record.pausedTriggerGroups = pausedTriggerGroups;
+            record.pausedJobGroups = pausedJobGroups;
+            return record;
+        }
+
+        private static Record clear() {
+            Record record = new Record();
+            record.type = Type.CLEAR;
+            return record;
+        }
+    }
+
+}
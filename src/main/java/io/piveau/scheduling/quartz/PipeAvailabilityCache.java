@@ -0,0 +1,66 @@
+package io.piveau.scheduling.quartz;
+
+import io.piveau.scheduling.launcher.LauncherService;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local cache of pipe availability, holding positive and negative lookups.
+ * Cleared whenever the launcher announces a changed pipe set.
+ */
+class PipeAvailabilityCache {
+
+    private final LauncherService launcherService;
+
+    private final Map<String, Boolean> available = new ConcurrentHashMap<>();
+
+    // guards against lookups started before an invalidation filling in stale results
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    PipeAvailabilityCache(LauncherService launcherService) {
+        this.launcherService = launcherService;
+    }
+
+    Future<Boolean> isPipeAvailable(String pipeId) {
+        Boolean cached = available.get(pipeId);
+        if (cached != null) {
+            hits.increment();
+            return Future.succeededFuture(cached);
+        }
+        misses.increment();
+        long current = generation.get();
+        return launcherService.isPipeAvailable(pipeId)
+                .onSuccess(exists -> {
+                    if (generation.get() == current) {
+                        available.put(pipeId, exists);
+                    }
+                });
+    }
+
+    void invalidate() {
+        generation.incrementAndGet();
+        available.clear();
+    }
+
+    void invalidate(Collection<String> pipeIds) {
+        generation.incrementAndGet();
+        available.keySet().removeAll(pipeIds);
+    }
+
+    JsonObject statistics() {
+        return new JsonObject()
+                .put("size", available.size())
+                .put("hits", hits.sum())
+                .put("misses", misses.sum());
+    }
+
+}
@@ -1,39 +1,50 @@
 package io.piveau.scheduling.quartz;
 
-import io.piveau.scheduling.launcher.LauncherService;
-import io.vertx.core.json.JsonObject;
+import io.micrometer.core.instrument.Timer;
+import io.piveau.scheduling.metrics.SchedulerMetrics;
 import org.quartz.DisallowConcurrentExecution;
 import org.quartz.Job;
 import org.quartz.JobExecutionContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.TimeUnit;
+
 @DisallowConcurrentExecution
 public class PipeJob implements Job {
 
+    private static final Timer fireLag = SchedulerMetrics.timer("scheduler.fire.lag");
+
     private final Logger log = LoggerFactory.getLogger(getClass());
 
-    private final LauncherService launcherService;
-    private final String pipeName;
+    private final LaunchAdmission admission;
+    private final LaunchDescriptor descriptor;
+    private final FireJournal journal;
 
-    public PipeJob(LauncherService launcherService, String pipeName) {
-        this.launcherService = launcherService;
-        this.pipeName = pipeName;
+    PipeJob(LaunchAdmission admission, LaunchDescriptor descriptor, FireJournal journal) {
+        this.admission = admission;
+        this.descriptor = descriptor;
+        this.journal = journal;
     }
 
     @Override
     public void execute(JobExecutionContext jobExecutionContext) {
-
-        String triggerObject = jobExecutionContext.getMergedJobDataMap().getString("triggerObject");
-        log.debug("Job triggered: {}", triggerObject);
-
-        JsonObject trigger = new JsonObject(triggerObject);
-
-        JsonObject configs = trigger.getJsonObject("configs", new JsonObject());
-
-        launcherService.launch(pipeName, configs)
+        String pipeName = descriptor.getPipeName();
+        log.debug("Job triggered: {}", jobExecutionContext.getTrigger().getKey());
+
+        String triggerId = jobExecutionContext.getTrigger().getKey().getName();
+        long fired = jobExecutionContext.getFireTime().getTime();
+        long scheduled = jobExecutionContext.getScheduledFireTime() != null ? jobExecutionContext.getScheduledFireTime().getTime() : 0;
+        if (scheduled > 0) {
+            fireLag.record(Math.max(fired - scheduled, 0), TimeUnit.MILLISECONDS);
+        }
+        long start = System.currentTimeMillis();
+
+        admission.runs().launch(pipeName, descriptor.getOverlap(), () -> admission.launch(pipeName, descriptor.getConfigs(), descriptor.getPriority()))
                 .onSuccess(runId -> log.debug("Pipe {} started successfully ({})!", pipeName, runId))
-                .onFailure(cause -> log.error("Starting pipe " + pipeName + " failed!", cause));
+                .onFailure(cause -> log.error("Starting pipe " + pipeName + " failed!", cause))
+                .onComplete(ar -> journal.append(pipeName, triggerId, scheduled, fired, System.currentTimeMillis() - start,
+                        ar.succeeded(), ar.succeeded() ? ar.result() : ar.cause().getMessage()));
     }
 
 }
@@ -0,0 +1,105 @@
+package io.piveau.scheduling.quartz;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.piveau.scheduling.metrics.SchedulerMetrics;
+import org.quartz.utils.ConnectionProvider;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Quartz data source backed by a HikariCP pool, publishing pool wait, usage and active connections as metrics.
+ * Configured through the quartz data source properties, see {@link QuartzProperties}.
+ */
+public class PooledConnectionProvider implements ConnectionProvider {
+
+    private final HikariConfig config = new HikariConfig();
+
+    private int statementCacheSize;
+
+    private HikariDataSource dataSource;
+
+    public PooledConnectionProvider() {
+        config.setPoolName("quartz");
+        config.setMaximumPoolSize(30);
+    }
+
+    public void setDriver(String driver) {
+        config.setDriverClassName(driver);
+    }
+
+    public void setURL(String url) {
+        config.setJdbcUrl(url);
+    }
+
+    public void setUser(String user) {
+        config.setUsername(user);
+    }
+
+    public void setPassword(String password) {
+        config.setPassword(password);
+    }
+
+    public void setPoolName(String poolName) {
+        config.setPoolName(poolName);
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        config.setMaximumPoolSize(maxConnections);
+    }
+
+    public void setMinIdle(int minIdle) {
+        config.setMinimumIdle(minIdle);
+    }
+
+    public void setConnectionTimeout(long connectionTimeout) {
+        config.setConnectionTimeout(connectionTimeout);
+    }
+
+    public void setIdleTimeout(long idleTimeout) {
+        config.setIdleTimeout(idleTimeout);
+    }
+
+    public void setMaxLifetime(long maxLifetime) {
+        config.setMaxLifetime(maxLifetime);
+    }
+
+    public void setValidationQuery(String validationQuery) {
+        config.setConnectionTestQuery(validationQuery);
+    }
+
+    public void setValidationTimeout(long validationTimeout) {
+        config.setValidationTimeout(validationTimeout);
+    }
+
+    /**
+     * Prepared statements cached per connection. The pool leaves statement caching to the driver, so this is passed
+     * on as the driver's own setting, currently for H2 only.
+     */
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    @Override
+    public void initialize() {
+        if (statementCacheSize > 0 && config.getJdbcUrl() != null && config.getJdbcUrl().startsWith("jdbc:h2:")) {
+            config.addDataSourceProperty("QUERY_CACHE_SIZE", Integer.toString(statementCacheSize));
+        }
+        config.setMetricRegistry(SchedulerMetrics.REGISTRY);
+        dataSource = new HikariDataSource(config);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    @Override
+    public void shutdown() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+}
@@ -0,0 +1,85 @@
+package io.piveau.scheduling.quartz;
+
+import io.vertx.core.json.JsonObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Scheduler properties, read from the bundled quartz.properties and overridden by the quartz configuration.
+ * <p>
+ * Supported keys are url, user and password of the job store database, pool for the connection pool settings of
+ * {@link PooledConnectionProvider} (e.g. maxConnections, minIdle, validationTimeout, statementCacheSize), clustered,
+ * instanceId and checkinInterval for clustered mode, and properties for arbitrary quartz properties.
+ * <p>
+ * With jobStore set to ram the database is replaced by the {@link PersistentRAMJobStore}, configured by directory,
+ * flushInterval and compactThreshold. Clustering needs the database and is ignored then.
+ * <p>
+ * A threadPool object switches jobs to the {@link ElasticThreadPool}, configured by mode (platform, worker or
+ * virtual), maxThreads and keepAlive. Its batchSize lets the scheduler acquire that many due triggers at
+ * once, so clustered fire times are handed to the pool together.
+ */
+final class QuartzProperties {
+
+    static final String DATA_SOURCE = "QuartzDB";
+    static final String DATA_SOURCE_PREFIX = "org.quartz.dataSource." + DATA_SOURCE + ".";
+    static final String DATA_SOURCE_URL = DATA_SOURCE_PREFIX + "URL";
+    static final String DATA_SOURCE_USER = DATA_SOURCE_PREFIX + "user";
+    static final String DATA_SOURCE_PASSWORD = DATA_SOURCE_PREFIX + "password";
+
+    private QuartzProperties() {
+    }
+
+    static Properties load(JsonObject quartzConfig) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream inputStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("quartz.properties")) {
+            if (inputStream != null) {
+                properties.load(inputStream);
+            }
+        }
+
+        if ("ram".equals(quartzConfig.getString("jobStore", "jdbc"))) {
+            properties.stringPropertyNames().stream()
+                    .filter(name -> name.startsWith("org.quartz.jobStore.") || name.startsWith("org.quartz.dataSource."))
+                    .forEach(properties::remove);
+            properties.setProperty("org.quartz.jobStore.class", PersistentRAMJobStore.class.getName());
+            properties.setProperty("org.quartz.jobStore.directory", quartzConfig.getString("directory", "./db/ramstore"));
+            properties.setProperty("org.quartz.jobStore.flushInterval", quartzConfig.getValue("flushInterval", 1000).toString());
+            properties.setProperty("org.quartz.jobStore.compactThreshold", quartzConfig.getValue("compactThreshold", 100000).toString());
+        } else {
+            if (quartzConfig.containsKey("url")) {
+                properties.setProperty(DATA_SOURCE_URL, quartzConfig.getString("url"));
+            }
+            if (quartzConfig.containsKey("user")) {
+                properties.setProperty(DATA_SOURCE_USER, quartzConfig.getString("user"));
+            }
+            if (quartzConfig.containsKey("password")) {
+                properties.setProperty(DATA_SOURCE_PASSWORD, quartzConfig.getString("password"));
+            }
+            quartzConfig.getJsonObject("pool", new JsonObject())
+                    .forEach(entry -> properties.setProperty(DATA_SOURCE_PREFIX + entry.getKey(), String.valueOf(entry.getValue())));
+
+            if (quartzConfig.getBoolean("clustered", false)) {
+                properties.setProperty("org.quartz.jobStore.isClustered", "true");
+                properties.setProperty("org.quartz.scheduler.instanceId", quartzConfig.getString("instanceId", "AUTO"));
+                properties.setProperty("org.quartz.jobStore.clusterCheckinInterval", quartzConfig.getValue("checkinInterval", 7500).toString());
+            }
+        }
+
+        JsonObject threadPool = quartzConfig.getJsonObject("threadPool");
+        if (threadPool != null) {
+            properties.setProperty("org.quartz.threadPool.class", ElasticThreadPool.class.getName());
+            properties.setProperty("org.quartz.threadPool.mode", threadPool.getString("mode", "platform"));
+            properties.setProperty("org.quartz.threadPool.threadCount", threadPool.getValue("maxThreads", 10).toString());
+            properties.setProperty("org.quartz.threadPool.keepAlive", threadPool.getValue("keepAlive", 60000).toString());
+            properties.setProperty("org.quartz.scheduler.batchTriggerAcquisitionMaxCount", threadPool.getValue("batchSize", 1).toString());
+        }
+
+        quartzConfig.getJsonObject("properties", new JsonObject())
+                .forEach(entry -> properties.setProperty(entry.getKey(), String.valueOf(entry.getValue())));
+
+        return properties;
+    }
+
+}
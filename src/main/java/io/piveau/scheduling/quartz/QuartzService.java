@@ -8,28 +8,44 @@ import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
-import org.quartz.spi.JobFactory;
 
 @ProxyGen
 public interface QuartzService {
     String SERVICE_ADDRESS = "io.piveau.scheduling.quartz.service";
+    /** Publish the run id, as string, here when a run has finished, to end it before the run timeout. */
+    String RUN_FINISHED_ADDRESS = "io.piveau.scheduling.run.finished";
 
-    static QuartzService create(JobFactory jobFactory, LauncherService launcherService, Handler<AsyncResult<QuartzService>> readyHandler) {
-        return new QuartzServiceImpl(jobFactory, launcherService, readyHandler);
+    static QuartzService create(Vertx vertx, JsonObject config, VertxJobFactory jobFactory, LauncherService launcherService, Handler<AsyncResult<QuartzService>> readyHandler) {
+        return new QuartzServiceImpl(vertx, config, jobFactory, launcherService, readyHandler);
     }
 
     static QuartzService createProxy(Vertx vertx, String address) {
         return new QuartzServiceVertxEBProxy(vertx, address);
     }
 
-    Future<JsonObject> listTriggers();
+    Future<JsonObject> listTriggers(int limit, String after, String status);
+
+    Future<String> getScheduleTag(String pipeId);
 
     Future<JsonArray> getTriggers(String pipeId);
 
     Future<String> createOrUpdateTrigger(String pipeId, JsonArray triggerArray);
 
+    Future<JsonObject> bulkCreateOrUpdate(JsonObject bulk);
+
     Future<Void> deleteTriggers(String pipeId);
 
     Future<String> setTriggerStatus(String pipeId, String triggerId, String status);
 
+    Future<JsonObject> getStatistics();
+
+    Future<JsonArray> getHistory(String pipeId, int limit);
+
+    Future<JsonObject> getForecast(String from, String to, int limit);
+
+    /**
+     * Changes the number of jobs running at once, needs the elastic thread pool. Returns the size in effect.
+     */
+    Future<Integer> resizeThreadPool(int size);
+
 }
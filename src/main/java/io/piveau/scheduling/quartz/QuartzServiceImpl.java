@@ -1,23 +1,38 @@
 package io.piveau.scheduling.quartz;
 
+import io.micrometer.core.instrument.Gauge;
+import io.piveau.scheduling.metrics.SchedulerMetrics;
+import io.piveau.json.ConfigHelper;
+import io.piveau.scheduling.ApplicationConfig;
 import io.piveau.scheduling.launcher.LauncherService;
 import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.serviceproxy.ServiceException;
 import org.quartz.*;
+import org.h2.tools.RunScript;
 import org.quartz.impl.StdSchedulerFactory;
-import org.quartz.impl.matchers.GroupMatcher;
-import org.quartz.spi.JobFactory;
+import org.quartz.utils.DBConnectionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.sql.Connection;
+import java.sql.ResultSet;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import static org.quartz.JobBuilder.newJob;
@@ -26,48 +41,180 @@ import static org.quartz.TriggerBuilder.newTrigger;
 
 public class QuartzServiceImpl implements QuartzService {
 
+    private static final int BULK_BATCH_SIZE = 500;
+
+    private static final long MAX_FORECAST_WINDOW = TimeUnit.DAYS.toMillis(7);
+    private static final int MAX_FORECAST_LIMIT = 10000;
+
+    private static final AtomicLong lastVersion = new AtomicLong();
+
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     private Scheduler scheduler;
 
-    private final LauncherService launcherService;
+    private final TriggerIndex triggerIndex = new TriggerIndex();
+
+    private final PipeAvailabilityCache pipeAvailability;
+
+    private final VertxJobFactory jobFactory;
 
-    QuartzServiceImpl(JobFactory jobFactory, LauncherService launcherService, Handler<AsyncResult<QuartzService>> readyHandler) {
-        this.launcherService = launcherService;
+    private final int defaultSpread;
+
+    // blocking work of write operations, ordered per pipe
+    private final StripedExecutor executor;
+
+    private boolean clustered;
+
+    QuartzServiceImpl(Vertx vertx, JsonObject config, VertxJobFactory jobFactory, LauncherService launcherService, Handler<AsyncResult<QuartzService>> readyHandler) {
+        this.jobFactory = jobFactory;
+        defaultSpread = config.getInteger(ApplicationConfig.ENV_PIVEAU_TRIGGER_SPREAD, ApplicationConfig.DEFAULT_PIVEAU_TRIGGER_SPREAD);
+        pipeAvailability = new PipeAvailabilityCache(launcherService);
+        vertx.eventBus().<Object>consumer(LauncherService.PIPES_CHANGED_ADDRESS, message -> {
+            if (message.body() instanceof JsonArray) {
+                pipeAvailability.invalidate(((JsonArray) message.body()).getList());
+            } else {
+                pipeAvailability.invalidate();
+            }
+        });
+        JsonObject quartzConfig = ConfigHelper.forConfig(config).forceJsonObject(ApplicationConfig.ENV_PIVEAU_QUARTZ_CONFIG);
+        executor = new StripedExecutor(vertx, "quartz-service", quartzConfig.getInteger("stripes", 8));
         try {
-            scheduler = new StdSchedulerFactory().getScheduler();
+            Properties properties = QuartzProperties.load(quartzConfig);
+            scheduler = new StdSchedulerFactory(properties).getScheduler();
+            if (properties.containsKey(QuartzProperties.DATA_SOURCE_URL)) {
+                initH2();
+            }
             scheduler.setJobFactory(jobFactory);
+            scheduler.getListenerManager().addSchedulerListener(triggerIndex);
+            scheduler.getListenerManager().addSchedulerListener(jobFactory.descriptors());
+            triggerIndex.rebuild(scheduler);
             scheduler.start();
+            Gauge.builder("scheduler.threadpool.size", scheduler, QuartzServiceImpl::poolSize)
+                    .register(SchedulerMetrics.REGISTRY);
+            Gauge.builder("scheduler.threadpool.active", scheduler, QuartzServiceImpl::executingJobs)
+                    .register(SchedulerMetrics.REGISTRY);
+            clustered = scheduler.getMetaData().isJobStoreClustered();
+            if (clustered) {
+                // listeners only see changes made on this node, pick up the others periodically
+                vertx.setPeriodic(quartzConfig.getLong("refreshInterval", 30000L), id -> refreshIndex());
+            }
             readyHandler.handle(Future.succeededFuture(this));
-        } catch (SchedulerException e) {
+        } catch (SchedulerException | IOException e) {
             log.error("Creating and starting quartz scheduler", e);
             readyHandler.handle(Future.failedFuture(e));
         }
     }
 
+    // runs on the scheduler's own pool, before anything queries the tables
+    private void initH2() {
+        try (Connection connection = DBConnectionManager.getInstance().getConnection(QuartzProperties.DATA_SOURCE)) {
+            if (!"H2".equals(connection.getMetaData().getDatabaseProductName())) {
+                return;
+            }
+            ResultSet rset = connection.getMetaData().getTables(null, null, "QRTZ_TRIGGERS", null);
+            if (!rset.next()) {
+                try (InputStream inputStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("tables_h2.sql")) {
+                    if (inputStream != null) {
+                        RunScript.execute(connection, new InputStreamReader(inputStream));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error("Init H2 db", e);
+        }
+    }
+
+    private static int poolSize(Scheduler scheduler) {
+        try {
+            return scheduler.getMetaData().getThreadPoolSize();
+        } catch (SchedulerException e) {
+            return 0;
+        }
+    }
+
+    private static int executingJobs(Scheduler scheduler) {
+        try {
+            return scheduler.getCurrentlyExecutingJobs().size();
+        } catch (SchedulerException e) {
+            return 0;
+        }
+    }
+
+    private void refreshIndex() {
+        try {
+            triggerIndex.rebuild(scheduler);
+        } catch (SchedulerException e) {
+            log.error("Refreshing trigger index", e);
+        }
+    }
+
     @Override
-    public Future<JsonObject> listTriggers() {
-        JsonObject triggers = new JsonObject();
+    public Future<JsonObject> listTriggers(int limit, String after, String status) {
+        return Future.succeededFuture(triggerIndex.listTriggers(limit, after, status));
+    }
+
+    @Override
+    public Future<String> getScheduleTag(String pipeId) {
+        return Future.succeededFuture(pipeId != null ? triggerIndex.tag(pipeId) : triggerIndex.tag());
+    }
+
+    @Override
+    public Future<JsonObject> getStatistics() {
+        return Future.succeededFuture(new JsonObject()
+                .put("pipeAvailability", pipeAvailability.statistics())
+                .put("launches", jobFactory.admission().statistics())
+                .put("runs", jobFactory.admission().runs().statistics())
+                .put("queueDepths", executor.queueDepths()));
+    }
+
+    @Override
+    public Future<JsonObject> getForecast(String from, String to, int limit) {
+        Date start;
+        Date end;
         try {
-            scheduler.getTriggerGroupNames().forEach(group -> {
-                JsonArray triggerArray = getTriggersB(group);
-                triggers.put(group, triggerArray);
-            });
-            return Future.succeededFuture(triggers);
+            start = from != null ? Date.from(ZonedDateTime.parse(from, DateTimeFormatter.ISO_DATE_TIME).toInstant()) : new Date();
+            end = to != null ? Date.from(ZonedDateTime.parse(to, DateTimeFormatter.ISO_DATE_TIME).toInstant()) : new Date(start.getTime() + TimeUnit.DAYS.toMillis(1));
+        } catch (DateTimeParseException e) {
+            return Future.failedFuture(new ServiceException(400, e.getMessage()));
+        }
+        if (!end.after(start) || end.getTime() - start.getTime() > MAX_FORECAST_WINDOW) {
+            return Future.failedFuture(new ServiceException(400, "to must be after from and at most 7 days later"));
+        }
+        if (limit < 1 || limit > MAX_FORECAST_LIMIT) {
+            return Future.failedFuture(new ServiceException(400, "limit must be between 1 and " + MAX_FORECAST_LIMIT));
+        }
+        return Future.succeededFuture(triggerIndex.forecast(start, end, limit));
+    }
+
+    @Override
+    public Future<Integer> resizeThreadPool(int size) {
+        if (size < 1) {
+            return Future.failedFuture(new ServiceException(400, "Size must be at least 1"));
+        }
+        try {
+            ElasticThreadPool threadPool = ElasticThreadPool.of(scheduler.getSchedulerName());
+            if (threadPool == null) {
+                return Future.failedFuture(new ServiceException(400, "Resizing needs the threadPool quartz config"));
+            }
+            return Future.succeededFuture(threadPool.resize(size));
         } catch (SchedulerException e) {
-            log.error("Get trigger key list", e);
             return Future.failedFuture(new ServiceException(500, e.getMessage()));
         }
     }
 
+    @Override
+    public Future<JsonArray> getHistory(String pipeId, int limit) {
+        // kept for removed pipes as well
+        return Future.succeededFuture(jobFactory.journal().history(pipeId, limit));
+    }
+
     @Override
     public Future<JsonArray> getTriggers(String pipeId) {
         Promise<JsonArray> promise = Promise.promise();
-        launcherService.isPipeAvailable(pipeId)
+        pipeAvailability.isPipeAvailable(pipeId)
                 .onSuccess(exists -> {
                     if (exists) {
-                        JsonArray triggerArray = getTriggersB(pipeId);
-                        promise.complete(triggerArray);
+                        promise.complete(triggerIndex.getTriggers(pipeId));
                     } else {
                         promise.fail(new ServiceException(404, "Pipe not found"));
                     }
@@ -78,135 +225,276 @@ public class QuartzServiceImpl implements QuartzService {
 
     @Override
     public Future<String> createOrUpdateTrigger(String pipeId, JsonArray triggerArray) {
-        Promise<String> promise = Promise.promise();
-        launcherService.isPipeAvailable(pipeId)
-                .onSuccess(exists -> {
-                    if (exists) {
-                        JobKey jobKey = jobKey(pipeId, pipeId);
-                        try {
-                            // check if an immediate trigger is contained
-                            Trigger now = createImmediateTrigger(pipeId, triggerArray);
-
-                            Set<Trigger> triggers = new HashSet<>();
-                            triggerArray.forEach(obj -> triggers.addAll(createTrigger(pipeId, (JsonObject) obj)));
-
-                            String status = "created";
-                            JobDetail detail = newJob(PipeJob.class).withIdentity(pipeId, pipeId).build();
-
-                            if (!triggers.isEmpty()) {
-                                if (scheduler.checkExists(jobKey)) {
-                                    scheduler.deleteJob(jobKey);
-                                    status = "updated";
-                                }
-
-                                // create
-                                scheduler.scheduleJob(detail, triggers, true);
-                            }
-                            if (now != null) {
-                                if (scheduler.checkExists(jobKey)) {
-                                    scheduler.triggerJob(jobKey, now.getJobDataMap());
-                                } else {
-                                    scheduler.scheduleJob(detail, now);
-                                }
-                            }
-                            promise.complete(status);
-                        } catch (SchedulerException e) {
-                            log.error("Scheduling", e);
-                            promise.fail(new ServiceException(500, e.getMessage()));
-                        }
-                    } else {
-                        promise.fail(new ServiceException(404, "Pipe not found"));
+        return executor.submit(pipeId, () -> {
+            requireAvailable(pipeId);
+            try {
+                // check if an immediate trigger is contained
+                Trigger now = createImmediateTrigger(pipeId, triggerArray);
+
+                Set<Trigger> triggers = new HashSet<>();
+                triggerArray.forEach(obj -> triggers.addAll(createTrigger(pipeId, (JsonObject) obj)));
+
+                return schedule(pipeId, triggers, now);
+            } catch (SchedulerException e) {
+                log.error("Scheduling", e);
+                throw new ServiceException(500, e.getMessage());
+            } catch (RuntimeException e) {
+                throw new ServiceException(400, "Invalid trigger: " + e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public Future<JsonObject> bulkCreateOrUpdate(JsonObject bulk) {
+        // lookups run in parallel, the pipes are queued on their stripes right away to keep the order per pipe
+        Map<String, Future<Boolean>> lookups = new LinkedHashMap<>();
+        Map<Integer, List<String>> stripes = new HashMap<>();
+        bulk.fieldNames().forEach(pipeId -> {
+            lookups.put(pipeId, pipeAvailability.isPipeAvailable(pipeId));
+            stripes.computeIfAbsent(executor.stripeOf(pipeId), stripe -> new ArrayList<>()).add(pipeId);
+        });
+
+        List<Future> parts = new ArrayList<>();
+        stripes.forEach((stripe, pipeIds) -> parts.add(executor.submit(stripe, () -> {
+            JsonObject report = new JsonObject();
+
+            // validate everything before the first write
+            List<PipeSchedule> valid = new ArrayList<>();
+            for (String pipeId : pipeIds) {
+                Future<Boolean> lookup = lookups.get(pipeId);
+                try {
+                    await(lookup);
+                } catch (CompletionException e) {
+                    // reported below
+                }
+                if (lookup.failed()) {
+                    report.put(pipeId, failed(lookup.cause().getMessage()));
+                } else if (!lookup.result()) {
+                    report.put(pipeId, failed("Pipe not found"));
+                } else {
+                    try {
+                        JsonArray triggerArray = bulk.getJsonArray(pipeId).copy();
+                        Trigger now = createImmediateTrigger(pipeId, triggerArray);
+                        Set<Trigger> triggers = new HashSet<>();
+                        triggerArray.forEach(obj -> triggers.addAll(createTrigger(pipeId, (JsonObject) obj)));
+                        valid.add(new PipeSchedule(pipeId, triggers, now));
+                    } catch (RuntimeException e) {
+                        report.put(pipeId, failed("Invalid trigger: " + e.getMessage()));
                     }
-                })
-                .onFailure(cause -> promise.fail(new ServiceException(500, cause.getMessage())));
-        return promise.future();
+                }
+            }
+
+            for (int i = 0; i < valid.size(); i += BULK_BATCH_SIZE) {
+                scheduleBatch(valid.subList(i, Math.min(i + BULK_BATCH_SIZE, valid.size())), report);
+            }
+            return report;
+        })));
+
+        return CompositeFuture.all(parts).map(done -> {
+            Map<String, Object> outcomes = new HashMap<>();
+            parts.forEach(part -> outcomes.putAll(((JsonObject) part.result()).getMap()));
+            JsonObject report = new JsonObject();
+            bulk.fieldNames().forEach(pipeId -> report.put(pipeId, outcomes.get(pipeId)));
+            return report;
+        });
     }
 
     @Override
     public Future<Void> deleteTriggers(String pipeId) {
-        Promise<Void> promise = Promise.promise();
-        launcherService.isPipeAvailable(pipeId)
-                .onSuccess(exists -> {
-                    if (exists) {
-                        JobKey jobKey = jobKey(pipeId, pipeId);
-                        try {
-                            if (scheduler.checkExists(jobKey)) {
-                                scheduler.deleteJob(jobKey);
-                            }
-                            promise.complete();
-                        } catch (SchedulerException e) {
-                            promise.fail(new ServiceException(500, e.getMessage()));
-                        }
-                    } else {
-                        promise.fail(new ServiceException(404, "Pipe not found"));
-                    }
-                })
-                .onFailure(cause -> promise.fail(new ServiceException(500, cause.getMessage())));
-        return promise.future();
+        return executor.submit(pipeId, () -> {
+            requireAvailable(pipeId);
+            JobKey jobKey = jobKey(pipeId, pipeId);
+            try {
+                if (scheduler.checkExists(jobKey)) {
+                    scheduler.deleteJob(jobKey);
+                }
+                return null;
+            } catch (SchedulerException e) {
+                throw new ServiceException(500, e.getMessage());
+            }
+        });
     }
 
     @Override
     public Future<String> setTriggerStatus(String pipeId, String triggerId, String status) {
-        Promise<String> promise = Promise.promise();
-        launcherService.isPipeAvailable(pipeId)
-                .onSuccess(exists -> {
-                    if (exists) {
-                        try {
-                            if (!scheduler.checkExists(TriggerKey.triggerKey(triggerId, pipeId))) {
-                                promise.fail(new ServiceException(404, "Trigger " + triggerId + " for pipe " + pipeId + " not found"));
-                            } else {
-                                TriggerKey triggerKey = TriggerKey.triggerKey(triggerId, pipeId);
-                                Trigger.TriggerState state = scheduler.getTriggerState(triggerKey);
-                                String oldStatus = state == Trigger.TriggerState.PAUSED ? "disabled" : "enabled";
-                                if (status.equals("enable") && state == Trigger.TriggerState.PAUSED) {
-                                    scheduler.resumeTrigger(triggerKey);
-                                    promise.complete(oldStatus);
-                                } else if (status.equals("disable") && state != Trigger.TriggerState.PAUSED) {
-                                    scheduler.pauseTrigger(triggerKey);
-                                    promise.complete(oldStatus);
-                                } else {
-                                    promise.fail(new ServiceException(409, "Status already set or unknown"));
-                                }
-                            }
-                        } catch (SchedulerException e) {
-                            promise.fail(new ServiceException(500, e.getMessage()));
-                        }
+        return executor.submit(pipeId, () -> {
+            requireAvailable(pipeId);
+            try {
+                TriggerKey triggerKey = TriggerKey.triggerKey(triggerId, pipeId);
+                if (!scheduler.checkExists(triggerKey)) {
+                    throw new ServiceException(404, "Trigger " + triggerId + " for pipe " + pipeId + " not found");
+                }
+                Trigger.TriggerState state = scheduler.getTriggerState(triggerKey);
+                String oldStatus = state == Trigger.TriggerState.PAUSED ? "disabled" : "enabled";
+                if (status.equals("enable") && state == Trigger.TriggerState.PAUSED) {
+                    scheduler.resumeTrigger(triggerKey);
+                } else if (status.equals("disable") && state != Trigger.TriggerState.PAUSED) {
+                    scheduler.pauseTrigger(triggerKey);
+                } else {
+                    throw new ServiceException(409, "Status already set or unknown");
+                }
+                return oldStatus;
+            } catch (SchedulerException e) {
+                throw new ServiceException(500, e.getMessage());
+            }
+        });
+    }
+
+    // blocks the stripe until the launcher answered
+    private void requireAvailable(String pipeId) {
+        boolean exists;
+        try {
+            exists = await(pipeAvailability.isPipeAvailable(pipeId));
+        } catch (CompletionException e) {
+            throw new ServiceException(500, e.getCause().getMessage());
+        }
+        if (!exists) {
+            throw new ServiceException(404, "Pipe not found");
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        return future.toCompletionStage().toCompletableFuture().join();
+    }
+
+    // applies the changes of all pipes of the batch with one store and one unschedule transaction
+    private void scheduleBatch(List<PipeSchedule> batch, JsonObject report) {
+        Map<String, TriggerDiff> diffs = new HashMap<>();
+        Map<JobDetail, Set<? extends Trigger>> jobs = new HashMap<>();
+        List<TriggerKey> removed = new ArrayList<>();
+
+        try {
+            for (PipeSchedule pipe : batch) {
+                if (!pipe.triggers.isEmpty()) {
+                    TriggerDiff diff = TriggerDiff.of(pipe.pipeId, storedTriggers(pipe.pipeId), pipe.triggers);
+                    diffs.put(pipe.pipeId, diff);
+                    if (!diff.schedule().isEmpty()) {
+                        jobs.put(newJob(PipeJob.class).withIdentity(pipe.pipeId, pipe.pipeId).build(), diff.schedule());
+                    }
+                    removed.addAll(diff.unschedule());
+                }
+            }
+            if (!jobs.isEmpty()) {
+                scheduler.scheduleJobs(jobs, true);
+            }
+            if (!removed.isEmpty()) {
+                scheduler.unscheduleJobs(removed);
+            }
+        } catch (SchedulerException e) {
+            log.error("Bulk scheduling, falling back to single pipes", e);
+            batch.forEach(pipe -> {
+                try {
+                    report.put(pipe.pipeId, new JsonObject().put("status", schedule(pipe.pipeId, pipe.triggers, pipe.now)));
+                } catch (SchedulerException se) {
+                    report.put(pipe.pipeId, failed(se.getMessage()));
+                }
+            });
+            return;
+        }
+
+        batch.forEach(pipe -> {
+            JobKey jobKey = jobKey(pipe.pipeId, pipe.pipeId);
+            String status = diffs.containsKey(pipe.pipeId) ? diffs.get(pipe.pipeId).status() : "created";
+            try {
+                if (pipe.now != null) {
+                    if (!pipe.triggers.isEmpty() || scheduler.checkExists(jobKey)) {
+                        scheduler.triggerJob(jobKey, pipe.now.getJobDataMap());
                     } else {
-                        promise.fail(new ServiceException(404, "Pipe not found"));
+                        scheduler.scheduleJob(newJob(PipeJob.class).withIdentity(pipe.pipeId, pipe.pipeId).build(), pipe.now);
                     }
-                })
-                .onFailure(cause -> promise.fail(new ServiceException(500, cause.getMessage())));
-        return promise.future();
+                }
+                report.put(pipe.pipeId, new JsonObject().put("status", withLaunch(status, pipe.now)));
+            } catch (SchedulerException e) {
+                report.put(pipe.pipeId, failed(e.getMessage()));
+            }
+        });
+    }
+
+    private String schedule(String pipeId, Set<Trigger> triggers, Trigger now) throws SchedulerException {
+        JobKey jobKey = jobKey(pipeId, pipeId);
+        String status = "created";
+        JobDetail detail = newJob(PipeJob.class).withIdentity(pipeId, pipeId).build();
+
+        if (!triggers.isEmpty()) {
+            TriggerDiff diff = TriggerDiff.of(pipeId, storedTriggers(pipeId), triggers);
+            status = diff.status();
+
+            // store new and changed triggers before removing the others, so the job is never left without triggers
+            if (!diff.schedule().isEmpty()) {
+                scheduler.scheduleJob(detail, diff.schedule(), true);
+            }
+            if (!diff.unschedule().isEmpty()) {
+                scheduler.unscheduleJobs(diff.unschedule());
+            }
+        }
+        if (now != null) {
+            if (scheduler.checkExists(jobKey)) {
+                scheduler.triggerJob(jobKey, now.getJobDataMap());
+            } else {
+                scheduler.scheduleJob(detail, now);
+            }
+        }
+        return withLaunch(status, now);
+    }
+
+    // nothing written, but the immediate trigger still launched the pipe
+    private static String withLaunch(String status, Trigger now) {
+        return now != null && "unchanged".equals(status) ? "launched" : status;
+    }
+
+    // other nodes only show up in the index after the next refresh
+    private List<? extends Trigger> storedTriggers(String pipeId) throws SchedulerException {
+        return clustered ? scheduler.getTriggersOfJob(jobKey(pipeId, pipeId)) : triggerIndex.triggersOf(pipeId);
+    }
+
+    private JsonObject failed(String reason) {
+        return new JsonObject().put("status", "failed").put("reason", reason);
     }
 
     private Set<Trigger> createTrigger(String key, JsonObject triggerObject) {
         Set<Trigger> triggers = new HashSet<>();
 
         String id = triggerObject.getString("id");
+        // the effective fire time is computed, never stored
+        JsonObject stored = triggerObject.copy();
+        stored.remove("nextFireTime");
+        String payload = stored.encode();
+        String version = nextVersion();
+        int priority = triggerObject.getInteger("priority", Trigger.DEFAULT_PRIORITY);
+        if (triggerObject.containsKey("overlap")) {
+            RunTracker.Overlap.valueOf(triggerObject.getString("overlap").toUpperCase());
+        }
+        int spread = triggerObject.getInteger("spread", defaultSpread);
         if (triggerObject.containsKey("interval")) {
 
             JsonObject interval = triggerObject.getJsonObject("interval");
             String unit = interval.getString("unit");
             int value = interval.getInteger("value");
             CalendarIntervalScheduleBuilder scheduleBuilder = CalendarIntervalScheduleBuilder.calendarIntervalSchedule().withInterval(value, DateBuilder.IntervalUnit.valueOf(unit));
+            int offset = TriggerSpread.offset(key, id, spread);
             TriggerBuilder<CalendarIntervalTrigger> builder = newTrigger()
                     .withIdentity(id, key)
-                    .usingJobData("triggerObject", triggerObject.encodePrettily())
+                    .usingJobData("triggerObject", payload)
+                    .usingJobData("triggerVersion", version)
+                    .withPriority(priority)
+                    .usingJobData("spreadOffset", Integer.toString(offset))
                     .withSchedule(scheduleBuilder.withMisfireHandlingInstructionDoNothing());
 
-            evaluateNext(triggerObject, builder);
+            evaluateNext(triggerObject, builder, offset);
 
             triggers.add(builder.build());
         } else if (triggerObject.containsKey("cron")) {
 
-            String cron = triggerObject.getString("cron");
+            String cron = TriggerSpread.cron(triggerObject.getString("cron"), key, id, spread);
             CronScheduleBuilder scheduleBuilder = CronScheduleBuilder.cronSchedule(cron);
             TriggerBuilder<CronTrigger> builder = newTrigger()
                     .withIdentity(id, key)
-                    .usingJobData("triggerObject", triggerObject.encodePrettily())
+                    .usingJobData("triggerObject", payload)
+                    .usingJobData("triggerVersion", version)
+                    .withPriority(priority)
                     .withSchedule(scheduleBuilder.withMisfireHandlingInstructionDoNothing());
 
-            evaluateNext(triggerObject, builder);
+            evaluateNext(triggerObject, builder, 0);
 
             triggers.add(builder.build());
         } else if (triggerObject.containsKey("specific")) {
@@ -217,46 +505,28 @@ public class QuartzServiceImpl implements QuartzService {
                 String dateTime = specific.toString();
                 TriggerBuilder<Trigger> builder = newTrigger()
                         .withIdentity(triggerKey, key)
-                        .usingJobData("triggerObject", triggerObject.encodePrettily());
+                        .usingJobData("triggerObject", payload)
+                        .usingJobData("triggerVersion", version)
+                        .withPriority(priority);
                 triggerKey = id + ++count;
                 Date start = Date.from(ZonedDateTime.parse(dateTime, DateTimeFormatter.ISO_DATE_TIME).toInstant());
                 builder.startAt(start);
                 triggers.add(builder.build());
             }
         } else {
-            TriggerBuilder<Trigger> builder = newTrigger().withIdentity(id, key).usingJobData("triggerObject", triggerObject.encodePrettily());
+            TriggerBuilder<Trigger> builder = newTrigger()
+                    .withIdentity(id, key)
+                    .usingJobData("triggerObject", payload)
+                    .usingJobData("triggerVersion", version)
+                    .withPriority(priority);
             triggers.add(builder.build());
         }
         return triggers;
     }
 
-    private void evaluateNext(JsonObject triggerObject, TriggerBuilder<?> triggerBuilder) {
+    private void evaluateNext(JsonObject triggerObject, TriggerBuilder<?> triggerBuilder, int offset) {
         Date next = triggerObject.containsKey("next") ? Date.from(ZonedDateTime.parse(triggerObject.getString("next")).toInstant()) : DateBuilder.futureDate(5, DateBuilder.IntervalUnit.MINUTE);
-        triggerBuilder.startAt(next);
-    }
-
-    private JsonArray getTriggersB(String pipeId) {
-        JsonArray triggerArray = new JsonArray();
-        try {
-            Set<TriggerKey> groupTriggers = scheduler.getTriggerKeys(GroupMatcher.groupEquals(pipeId));
-            groupTriggers.iterator().forEachRemaining(key -> {
-                try {
-                    Trigger trigger = scheduler.getTrigger(key);
-                    JsonObject triggerObject = new JsonObject(trigger.getJobDataMap().getString("triggerObject"));
-                    if (triggerObject.containsKey("next")) {
-                        triggerObject.put("next", trigger.getFireTimeAfter(new Date()).toInstant().atZone(ZoneId.systemDefault()).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME));
-                    }
-                    triggerObject.put("status", (scheduler.getTriggerState(key) == Trigger.TriggerState.PAUSED ? "disabled" : "enabled"));
-                    triggerArray.add(triggerObject);
-                } catch (SchedulerException e) {
-                    log.error("Get trigger from key", e);
-                }
-            });
-            return triggerArray;
-        } catch (SchedulerException e) {
-            log.error("Get triggers", e);
-            return triggerArray;
-        }
+        triggerBuilder.startAt(new Date(next.getTime() + offset * 1000L));
     }
 
     private Trigger createImmediateTrigger(String key, JsonArray triggers) {
@@ -273,9 +543,31 @@ public class QuartzServiceImpl implements QuartzService {
             }
             JsonObject immediate = immediates.get(immediates.size() - 1);
             String id = immediate.getString("id");
-            TriggerBuilder<Trigger> builder = newTrigger().withIdentity(id, key).usingJobData("triggerObject", immediate.encodePrettily());
+            TriggerBuilder<Trigger> builder = newTrigger()
+                    .withIdentity(id, key)
+                    .usingJobData("triggerObject", immediate.encode())
+                    .usingJobData("triggerVersion", nextVersion())
+                    .withPriority(immediate.getInteger("priority", Trigger.DEFAULT_PRIORITY));
             return builder.build();
         }
     }
 
+    // unique across restarts as long as the clock does not jump back
+    private static String nextVersion() {
+        long now = System.currentTimeMillis();
+        return Long.toString(lastVersion.updateAndGet(last -> Math.max(last + 1, now)));
+    }
+
+    private static final class PipeSchedule {
+        private final String pipeId;
+        private final Set<Trigger> triggers;
+        private final Trigger now;
+
+        private PipeSchedule(String pipeId, Set<Trigger> triggers, Trigger now) {
+            this.pipeId = pipeId;
+            this.triggers = triggers;
+            this.now = now;
+        }
+    }
+
 }
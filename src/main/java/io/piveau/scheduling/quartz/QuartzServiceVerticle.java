@@ -1,31 +1,56 @@
 package io.piveau.scheduling.quartz;
 
+import io.piveau.json.ConfigHelper;
+import io.piveau.scheduling.ApplicationConfig;
 import io.piveau.scheduling.launcher.LauncherService;
+import io.piveau.scheduling.metrics.SchedulerMetrics;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
 import io.vertx.serviceproxy.ServiceBinder;
-import org.h2.tools.RunScript;
+import org.h2.tools.Server;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.ResultSet;
+import java.io.IOException;
+import java.sql.SQLException;
 
 public class QuartzServiceVerticle extends AbstractVerticle {
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
+    private Server tcpServer;
+
+    private VertxJobFactory jobFactory;
+
     @Override
     public void start(Promise<Void> startPromise) {
 
-        initH2();
+        JsonObject quartzConfig = ConfigHelper.forConfig(config()).forceJsonObject(ApplicationConfig.ENV_PIVEAU_QUARTZ_CONFIG);
+
+        // lets one node serve the job store to the others, e.g. for a local cluster
+        if (quartzConfig.containsKey("tcpPort")) {
+            try {
+                tcpServer = Server.createTcpServer("-tcpPort", quartzConfig.getValue("tcpPort").toString(), "-tcpAllowOthers", "-ifNotExists").start();
+                log.info("H2 tcp server listening on {}", tcpServer.getURL());
+            } catch (SQLException e) {
+                startPromise.fail(e);
+                return;
+            }
+        }
+
+        LauncherService launcherService = SchedulerMetrics.timed(LauncherService.class,
+                LauncherService.createLocalOrProxy(vertx, LauncherService.SERVICE_ADDRESS), "launcher");
 
-        LauncherService launcherService = LauncherService.createProxy(vertx, LauncherService.SERVICE_ADDRESS);
+        JsonObject launchConfig = ConfigHelper.forConfig(config()).forceJsonObject(ApplicationConfig.ENV_PIVEAU_LAUNCH_CONFIG);
+        try {
+            jobFactory = VertxJobFactory.create(vertx, launchConfig);
+        } catch (IOException e) {
+            startPromise.fail(e);
+            return;
+        }
 
-        QuartzService.create(VertxJobFactory.create(vertx), launcherService, ready -> {
+        QuartzService.create(vertx, config(), jobFactory, launcherService, ready -> {
             if (ready.succeeded()) {
                 new ServiceBinder(vertx).setAddress(QuartzService.SERVICE_ADDRESS).register(QuartzService.class, ready.result());
                 startPromise.complete();
@@ -35,18 +60,13 @@ public class QuartzServiceVerticle extends AbstractVerticle {
         });
     }
 
-    private void initH2() {
-        try (Connection connection = DriverManager.getConnection("jdbc:h2:file:./db/quartzdb", "sa", "")) {
-            ResultSet rset = connection.getMetaData().getTables(null, null, "QRTZ_TRIGGERS", null);
-            if (!rset.next()) {
-                try (InputStream inputStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("tables_h2.sql")) {
-                    if (inputStream != null) {
-                        RunScript.execute(connection, new InputStreamReader(inputStream));
-                    }
-                }
-            }
-        } catch (Exception e) {
-            log.error("Init H2 db", e);
+    @Override
+    public void stop() {
+        if (jobFactory != null) {
+            jobFactory.journal().close();
+        }
+        if (tcpServer != null) {
+            tcpServer.stop();
         }
     }
 
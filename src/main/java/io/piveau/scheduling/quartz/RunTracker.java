@@ -0,0 +1,188 @@
+package io.piveau.scheduling.quartz;
+
+import io.micrometer.core.instrument.Counter;
+import io.piveau.scheduling.metrics.SchedulerMetrics;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs in flight per pipe, from the launch until the run timeout expires. Fires of a pipe with an active run are
+ * handled by the overlap policy of their trigger. Fires allowing overlaps are neither held back nor tracked.
+ * <p>
+ * Pipes do not report back to the scheduler, so the timeout ends most runs. A run ends earlier when its id is
+ * published on {@link QuartzService#RUN_FINISHED_ADDRESS}. Runs are tracked per node, in a cluster another node
+ * launches even while a run is active.
+ */
+class RunTracker {
+
+    enum Overlap {
+        /** Drop the fire. */
+        SKIP,
+        /** Keep one fire and launch it when the pipe is idle again, drop further ones. */
+        QUEUE,
+        /** Launch anyway. */
+        ALLOW;
+
+        static Overlap parse(String overlap) {
+            try {
+                return overlap != null ? valueOf(overlap.toUpperCase()) : ALLOW;
+            } catch (IllegalArgumentException e) {
+                return ALLOW;
+            }
+        }
+    }
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Vertx vertx;
+    private final long runTimeout;
+
+    private final Map<String, PipeRuns> pipes = new HashMap<>();
+    private final Map<String, String> pipeOfRun = new HashMap<>();
+
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder finished = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    // by policy, not by pipe, skips of a pipe are in its fire history
+    private final Map<Overlap, Counter> skippedCounters = new EnumMap<>(Overlap.class);
+
+    RunTracker(Vertx vertx, JsonObject config) {
+        this.vertx = vertx;
+        // shorter than common trigger intervals, so an hourly fire is not held back by the previous run
+        runTimeout = config.getLong("runTimeout", 1800000L);
+        for (Overlap overlap : List.of(Overlap.SKIP, Overlap.QUEUE)) {
+            skippedCounters.put(overlap, SchedulerMetrics.REGISTRY.counter("scheduler.fires.skipped",
+                    "overlap", overlap.name().toLowerCase()));
+        }
+        // runs may report to any node, only the launching one knows them
+        vertx.eventBus().<String>consumer(QuartzService.RUN_FINISHED_ADDRESS, message -> finished(message.body(), false));
+    }
+
+    /**
+     * Launches, unless the overlap policy holds the fire back. A skipped fire fails, a queued one completes with its
+     * later launch.
+     */
+    Future<String> launch(String pipeName, Overlap overlap, Supplier<Future<String>> launch) {
+        if (overlap == Overlap.ALLOW) {
+            return launch.get();
+        }
+        Promise<String> promise = Promise.promise();
+        synchronized (this) {
+            PipeRuns runs = pipes.computeIfAbsent(pipeName, name -> new PipeRuns());
+            if (runs.active()) {
+                if (overlap == Overlap.QUEUE && runs.queued == null) {
+                    runs.queued = new QueuedFire(launch, promise);
+                    queued.increment();
+                    return promise.future();
+                }
+                skipped.increment();
+                skippedCounters.get(overlap).increment();
+                log.debug("Skipping fire of pipe {}, a run is still active", pipeName);
+                return Future.failedFuture("Skipped, a run of the pipe is still active");
+            }
+            runs.launching++;
+        }
+        start(pipeName, launch, promise);
+        return promise.future();
+    }
+
+    synchronized JsonObject statistics() {
+        return new JsonObject()
+                .put("active", pipeOfRun.size())
+                .put("waiting", pipes.values().stream().filter(runs -> runs.queued != null).count())
+                .put("queued", queued.sum())
+                .put("skipped", skipped.sum())
+                .put("finished", finished.sum())
+                .put("expired", expired.sum());
+    }
+
+    private void start(String pipeName, Supplier<Future<String>> launch, Promise<String> promise) {
+        launch.get().onComplete(ar -> {
+            synchronized (this) {
+                PipeRuns runs = pipes.get(pipeName);
+                runs.launching--;
+                if (ar.succeeded()) {
+                    String runId = ar.result();
+                    runs.runs.put(runId, vertx.setTimer(runTimeout, id -> finished(runId, true)));
+                    pipeOfRun.put(runId, pipeName);
+                }
+            }
+            if (ar.failed()) {
+                next(pipeName);
+            }
+            promise.handle(ar);
+        });
+    }
+
+    private void finished(String runId, boolean timeout) {
+        String pipeName;
+        synchronized (this) {
+            pipeName = pipeOfRun.remove(runId);
+            if (pipeName == null) {
+                return;
+            }
+            Long timer = pipes.get(pipeName).runs.remove(runId);
+            if (timeout) {
+                expired.increment();
+                log.debug("Run {} of pipe {} ended by timeout after {} ms", runId, pipeName, runTimeout);
+            } else {
+                finished.increment();
+                vertx.cancelTimer(timer);
+            }
+        }
+        next(pipeName);
+    }
+
+    // launches the queued fire once the pipe is idle, forgets idle pipes
+    private void next(String pipeName) {
+        QueuedFire fire;
+        synchronized (this) {
+            PipeRuns runs = pipes.get(pipeName);
+            if (runs.active()) {
+                return;
+            }
+            if (runs.queued == null) {
+                pipes.remove(pipeName);
+                return;
+            }
+            fire = runs.queued;
+            runs.queued = null;
+            runs.launching++;
+        }
+        start(pipeName, fire.launch, fire.promise);
+    }
+
+    private static final class PipeRuns {
+        private int launching;
+        // run id to timeout timer
+        private final Map<String, Long> runs = new HashMap<>();
+        private QueuedFire queued;
+
+        private boolean active() {
+            return launching > 0 || !runs.isEmpty();
+        }
+    }
+
+    private static final class QueuedFire {
+        private final Supplier<Future<String>> launch;
+        private final Promise<String> promise;
+
+        private QueuedFire(Supplier<Future<String>> launch, Promise<String> promise) {
+            this.launch = launch;
+            this.promise = promise;
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+package io.piveau.scheduling.quartz;
+
+import io.micrometer.core.instrument.Gauge;
+import io.piveau.scheduling.metrics.SchedulerMetrics;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.json.JsonArray;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+
+/**
+ * Runs blocking tasks on a shared worker executor with one thread per stripe. Tasks with the same key go to the same
+ * stripe and run one after the other in submission order, tasks of different stripes run in parallel.
+ */
+final class StripedExecutor {
+
+    private final WorkerExecutor workerExecutor;
+    private final Stripe[] stripes;
+
+    StripedExecutor(Vertx vertx, String name, int size) {
+        workerExecutor = vertx.createSharedWorkerExecutor(name, size);
+        stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+            Gauge.builder("scheduler.service.queue", stripes[i], Stripe::depth)
+                    .tag("stripe", Integer.toString(i))
+                    .register(SchedulerMetrics.REGISTRY);
+        }
+    }
+
+    int stripeOf(String key) {
+        return Math.floorMod(key.hashCode(), stripes.length);
+    }
+
+    <T> Future<T> submit(String key, Callable<T> task) {
+        return submit(stripeOf(key), task);
+    }
+
+    <T> Future<T> submit(int stripe, Callable<T> task) {
+        Promise<T> promise = Promise.promise();
+        stripes[stripe].add(() -> {
+            try {
+                promise.complete(task.call());
+            } catch (Exception e) {
+                promise.fail(e);
+            }
+        });
+        return promise.future();
+    }
+
+    /**
+     * Tasks waiting per stripe, not counting the running one.
+     */
+    JsonArray queueDepths() {
+        JsonArray depths = new JsonArray();
+        for (Stripe stripe : stripes) {
+            depths.add(stripe.depth());
+        }
+        return depths;
+    }
+
+    private final class Stripe {
+        private final Deque<Runnable> tasks = new ArrayDeque<>();
+        private boolean running;
+
+        private synchronized void add(Runnable task) {
+            tasks.add(task);
+            if (!running) {
+                running = true;
+                next();
+            }
+        }
+
+        // one task per blocking call, so a long queue does not look like a blocked thread
+        private synchronized void next() {
+            Runnable task = tasks.poll();
+            if (task == null) {
+                running = false;
+                return;
+            }
+            workerExecutor.executeBlocking(promise -> {
+                try {
+                    task.run();
+                } finally {
+                    promise.complete();
+                    next();
+                }
+            }, false);
+        }
+
+        private synchronized int depth() {
+            return tasks.size();
+        }
+    }
+
+}
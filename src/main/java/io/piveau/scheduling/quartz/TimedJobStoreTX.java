@@ -0,0 +1,26 @@
+package io.piveau.scheduling.quartz;
+
+import io.micrometer.core.instrument.Timer;
+import io.piveau.scheduling.metrics.SchedulerMetrics;
+import org.quartz.JobPersistenceException;
+import org.quartz.impl.jdbcjobstore.JobStoreTX;
+
+/**
+ * JobStoreTX recording the latency of every job store transaction, tagged by the lock it holds.
+ */
+public class TimedJobStoreTX extends JobStoreTX {
+
+    private final Timer unlocked = SchedulerMetrics.timer("scheduler.jobstore.latency", "lock", "none");
+
+    @Override
+    protected Object executeInLock(String lockName, TransactionCallback txCallback) throws JobPersistenceException {
+        Timer timer = lockName != null ? SchedulerMetrics.timer("scheduler.jobstore.latency", "lock", lockName) : unlocked;
+        Timer.Sample sample = Timer.start(SchedulerMetrics.REGISTRY);
+        try {
+            return super.executeInLock(lockName, txCallback);
+        } finally {
+            sample.stop(timer);
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+package io.piveau.scheduling.quartz;
+
+import io.vertx.core.json.JsonObject;
+import org.quartz.CronTrigger;
+import org.quartz.Trigger;
+import org.quartz.TriggerKey;
+
+import java.util.*;
+
+/**
+ * Difference between the stored triggers of a pipe and a new set of triggers. Triggers are compared per trigger
+ * object, by id and content, so triggers generated from an unchanged object keep their fire state, even if some of
+ * them, e.g. specific times, already fired.
+ */
+final class TriggerDiff {
+
+    private final Set<Trigger> schedule = new HashSet<>();
+    private final List<TriggerKey> unschedule = new ArrayList<>();
+    private final boolean exists;
+
+    private TriggerDiff(boolean exists) {
+        this.exists = exists;
+    }
+
+    static TriggerDiff of(String pipeId, Collection<? extends Trigger> stored, Set<Trigger> triggers) {
+        Map<String, List<Trigger>> before = group(pipeId, stored);
+        Map<String, List<Trigger>> after = group(pipeId, triggers);
+
+        TriggerDiff diff = new TriggerDiff(!before.isEmpty());
+        after.forEach((id, incoming) -> {
+            List<Trigger> existing = before.getOrDefault(id, Collections.emptyList());
+            if (existing.isEmpty() || !sameDefinition(existing.get(0), incoming.get(0))) {
+                diff.schedule.addAll(incoming);
+                Set<TriggerKey> replaced = new HashSet<>();
+                incoming.forEach(trigger -> replaced.add(trigger.getKey()));
+                existing.stream()
+                        .map(Trigger::getKey)
+                        .filter(key -> !replaced.contains(key))
+                        .forEach(diff.unschedule::add);
+            }
+        });
+        before.forEach((id, existing) -> {
+            if (!after.containsKey(id)) {
+                existing.forEach(trigger -> diff.unschedule.add(trigger.getKey()));
+            }
+        });
+        return diff;
+    }
+
+    /**
+     * New and changed triggers, replacing stored triggers with the same key.
+     */
+    Set<Trigger> schedule() {
+        return schedule;
+    }
+
+    /**
+     * Stored triggers of removed or changed trigger objects that are not replaced.
+     */
+    List<TriggerKey> unschedule() {
+        return unschedule;
+    }
+
+    boolean unchanged() {
+        return schedule.isEmpty() && unschedule.isEmpty();
+    }
+
+    String status() {
+        if (!exists) {
+            return "created";
+        }
+        return unchanged() ? "unchanged" : "updated";
+    }
+
+    // trigger objects by id, triggers fired manually are not part of the schedule
+    private static Map<String, List<Trigger>> group(String pipeId, Collection<? extends Trigger> triggers) {
+        Map<String, List<Trigger>> groups = new HashMap<>();
+        for (Trigger trigger : triggers) {
+            String payload = trigger.getJobDataMap().getString("triggerObject");
+            if (payload != null && pipeId.equals(trigger.getKey().getGroup())) {
+                String id = new JsonObject(payload).getString("id");
+                groups.computeIfAbsent(id, k -> new ArrayList<>()).add(trigger);
+            }
+        }
+        return groups;
+    }
+
+    // the version differs on every request, the spread offset and cron expression on a changed global spread
+    private static boolean sameDefinition(Trigger stored, Trigger incoming) {
+        return new JsonObject(stored.getJobDataMap().getString("triggerObject"))
+                .equals(new JsonObject(incoming.getJobDataMap().getString("triggerObject")))
+                && Objects.equals(stored.getJobDataMap().getString("spreadOffset"), incoming.getJobDataMap().getString("spreadOffset"))
+                && Objects.equals(cronExpression(stored), cronExpression(incoming));
+    }
+
+    private static String cronExpression(Trigger trigger) {
+        return trigger instanceof CronTrigger ? ((CronTrigger) trigger).getCronExpression() : null;
+    }
+
+}
@@ -0,0 +1,707 @@
+package io.piveau.scheduling.quartz;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.quartz.*;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.listeners.SchedulerListenerSupport;
+
+import java.text.ParseException;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-process read model of all scheduled triggers, grouped by pipe id.
+ * <p>
+ * Registered as scheduler listener, so every schedule, unschedule, pause, resume and finalization going through the
+ * scheduler is reflected here. Reads never touch the job store.
+ * <p>
+ * Every change increments the schedule version, which is also kept per pipe. Together with the earliest upcoming fire
+ * time, when the listed next fire times change by themselves, it tags the current state for conditional reads.
+ * <p>
+ * A rebuild only replaces pipes that differ from the job store, and keeps pipes changed by listener events while it
+ * read the job store.
+ */
+class TriggerIndex extends SchedulerListenerSupport {
+
+    private static final long MINUTE = 60000;
+
+    private final ConcurrentNavigableMap<String, Map<String, Entry>> pipes = new ConcurrentSkipListMap<>();
+
+    private final Map<String, Long> pipeVersions = new ConcurrentHashMap<>();
+    private volatile long version;
+    private volatile long nextChange;
+
+    // pipes changed by events during a rebuild, null while none is running
+    private Set<String> changedDuringRebuild;
+    private boolean clearedDuringRebuild;
+    private final Object rebuildLock = new Object();
+
+    void rebuild(Scheduler scheduler) throws SchedulerException {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                changedDuringRebuild = new HashSet<>();
+                clearedDuringRebuild = false;
+            }
+            try {
+                apply(snapshot(scheduler));
+            } finally {
+                synchronized (this) {
+                    changedDuringRebuild = null;
+                }
+            }
+        }
+    }
+
+    private static Map<String, Map<String, Entry>> snapshot(Scheduler scheduler) throws SchedulerException {
+        Map<String, Map<String, Entry>> snapshot = new HashMap<>();
+        for (String group : scheduler.getTriggerGroupNames()) {
+            Map<String, Entry> entries = new TreeMap<>();
+            for (TriggerKey key : scheduler.getTriggerKeys(GroupMatcher.triggerGroupEquals(group))) {
+                Trigger trigger = scheduler.getTrigger(key);
+                if (trigger != null) {
+                    Entry entry = Entry.of(trigger, scheduler.getTriggerState(key) == Trigger.TriggerState.PAUSED);
+                    if (entry != null) {
+                        entries.put(key.getName(), entry);
+                    }
+                }
+            }
+            if (!entries.isEmpty()) {
+                snapshot.put(group, Collections.unmodifiableMap(entries));
+            }
+        }
+        return snapshot;
+    }
+
+    // replace pipe by pipe, readers never see a half empty index
+    private synchronized void apply(Map<String, Map<String, Entry>> snapshot) {
+        if (clearedDuringRebuild) {
+            return;
+        }
+        Set<String> changed = new HashSet<>();
+        snapshot.forEach((pipeId, entries) -> {
+            if (!changedDuringRebuild.contains(pipeId) && !sameEntries(pipes.get(pipeId), entries)) {
+                changed.add(pipeId);
+            }
+        });
+        pipes.keySet().stream()
+                .filter(pipeId -> !snapshot.containsKey(pipeId) && !changedDuringRebuild.contains(pipeId))
+                .forEach(changed::add);
+        if (changed.isEmpty()) {
+            return;
+        }
+        version++;
+        for (String pipeId : changed) {
+            Map<String, Entry> entries = snapshot.get(pipeId);
+            if (entries != null) {
+                pipes.put(pipeId, entries);
+                pipeVersions.put(pipeId, version);
+            } else {
+                pipes.remove(pipeId);
+                pipeVersions.remove(pipeId);
+            }
+        }
+        nextChange = 0;
+    }
+
+    private static boolean sameEntries(Map<String, Entry> current, Map<String, Entry> stored) {
+        if (current == null || !current.keySet().equals(stored.keySet())) {
+            return false;
+        }
+        return current.entrySet().stream().allMatch(entry -> entry.getValue().sameAs(stored.get(entry.getKey())));
+    }
+
+    /**
+     * Lists triggers in pipe id order.
+     *
+     * @param limit  maximum number of pipes, no limit if not positive
+     * @param after  cursor, only pipes sorting after this pipe id are listed, may be null
+     * @param status only triggers with this status (enabled or disabled) are listed, may be null
+     */
+    JsonObject listTriggers(int limit, String after, String status) {
+        JsonObject triggers = new JsonObject();
+        Date now = new Date();
+        Map<String, Map<String, Entry>> view = after != null ? pipes.tailMap(after, false) : pipes;
+        for (Map.Entry<String, Map<String, Entry>> pipe : view.entrySet()) {
+            if (limit > 0 && triggers.size() >= limit) {
+                break;
+            }
+            JsonArray triggerArray = toJson(pipe.getValue(), now, status);
+            if (!triggerArray.isEmpty()) {
+                triggers.put(pipe.getKey(), triggerArray);
+            }
+        }
+        return triggers;
+    }
+
+    /**
+     * Merges the fire times of all enabled triggers between from and to, earliest first. The fire times of a cron
+     * expression are computed once and shared by all triggers using it. The histogram counts these per expression,
+     * and the fires of an interval in seconds, minutes or hours per minute, without stepping through every fire.
+     *
+     * @param limit maximum number of fires listed, the histogram always counts all of them
+     * @return the listed fires, the total number of fires and their count per minute
+     */
+    JsonObject forecast(Date from, Date to, int limit) {
+        Map<String, long[]> cronTimes = new HashMap<>();
+        List<Cursor> cursors = new ArrayList<>();
+        pipes.forEach((pipeId, entries) -> entries.forEach((triggerId, entry) -> {
+            if (!entry.paused) {
+                cursors.add(Cursor.of(pipeId, triggerId, entry.trigger, from, to, cronTimes));
+            }
+        }));
+
+        Histogram histogram = new Histogram(from, to);
+        long total = 0;
+        for (Cursor cursor : cursors) {
+            total += cursor.count(histogram);
+        }
+
+        // only the listed fires need to be in order
+        JsonArray fires = new JsonArray();
+        PriorityQueue<Cursor> queue = new PriorityQueue<>();
+        for (Cursor cursor : cursors) {
+            cursor.reset();
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+        while (!queue.isEmpty() && fires.size() < limit) {
+            Cursor cursor = queue.poll();
+            fires.add(new JsonObject()
+                    .put("pipeId", cursor.pipeId)
+                    .put("triggerId", cursor.triggerId)
+                    .put("fireTime", format(new Date(cursor.next))));
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+
+        JsonObject perMinute = new JsonObject();
+        int[] minutes = histogram.minutes();
+        int peak = 0;
+        String peakMinute = null;
+        for (int i = 0; i < minutes.length; i++) {
+            if (minutes[i] > 0) {
+                String minute = format(new Date((histogram.minuteZero + i) * MINUTE));
+                perMinute.put(minute, minutes[i]);
+                if (minutes[i] > peak) {
+                    peak = minutes[i];
+                    peakMinute = minute;
+                }
+            }
+        }
+
+        JsonObject forecast = new JsonObject()
+                .put("from", format(from))
+                .put("to", format(to))
+                .put("total", total)
+                .put("fires", fires)
+                .put("histogram", perMinute);
+        if (peakMinute != null) {
+            forecast.put("peak", new JsonObject().put("minute", peakMinute).put("count", peak));
+        }
+        return forecast;
+    }
+
+    /**
+     * Tag of the whole schedule, changes whenever a listing of it would.
+     */
+    String tag() {
+        long now = System.currentTimeMillis();
+        if (nextChange <= now) {
+            updateNextChange(now);
+        }
+        return version + "-" + nextChange;
+    }
+
+    /**
+     * Tag of the triggers of a pipe, changes whenever they would read differently.
+     */
+    String tag(String pipeId) {
+        long pipeVersion = pipeVersions.getOrDefault(pipeId, 0L);
+        long now = System.currentTimeMillis();
+        long next = Long.MAX_VALUE;
+        for (Entry entry : pipes.getOrDefault(pipeId, Collections.emptyMap()).values()) {
+            next = Math.min(next, entry.nextFireTime(now));
+        }
+        return pipeVersion + "-" + next;
+    }
+
+    private synchronized void updateNextChange(long now) {
+        if (nextChange > now) {
+            return;
+        }
+        long next = Long.MAX_VALUE;
+        for (Map<String, Entry> entries : pipes.values()) {
+            for (Entry entry : entries.values()) {
+                next = Math.min(next, entry.nextFireTime(now));
+            }
+        }
+        nextChange = next;
+    }
+
+    JsonArray getTriggers(String pipeId) {
+        return toJson(pipes.getOrDefault(pipeId, Collections.emptyMap()), new Date(), null);
+    }
+
+    List<Trigger> triggersOf(String pipeId) {
+        List<Trigger> triggers = new ArrayList<>();
+        pipes.getOrDefault(pipeId, Collections.emptyMap()).values().forEach(entry -> triggers.add(entry.trigger));
+        return triggers;
+    }
+
+    @Override
+    public void jobScheduled(Trigger trigger) {
+        Entry entry = Entry.of(trigger, false);
+        if (entry != null) {
+            update(trigger.getKey(), entry);
+        }
+    }
+
+    @Override
+    public void jobUnscheduled(TriggerKey triggerKey) {
+        update(triggerKey, null);
+    }
+
+    @Override
+    public void triggerFinalized(Trigger trigger) {
+        update(trigger.getKey(), null);
+    }
+
+    @Override
+    public void triggerPaused(TriggerKey triggerKey) {
+        setPaused(triggerKey, true);
+    }
+
+    @Override
+    public void triggerResumed(TriggerKey triggerKey) {
+        setPaused(triggerKey, false);
+    }
+
+    @Override
+    public synchronized void jobDeleted(JobKey jobKey) {
+        // jobs and trigger groups are both named after the pipe id
+        if (pipes.remove(jobKey.getGroup()) != null) {
+            version++;
+            pipeVersions.remove(jobKey.getGroup());
+        }
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(jobKey.getGroup());
+        }
+    }
+
+    @Override
+    public synchronized void schedulingDataCleared() {
+        clearedDuringRebuild = true;
+        pipes.clear();
+        version++;
+        pipeVersions.clear();
+    }
+
+    private synchronized void setPaused(TriggerKey triggerKey, boolean paused) {
+        Entry entry = pipes.getOrDefault(triggerKey.getGroup(), Collections.emptyMap()).get(triggerKey.getName());
+        if (entry != null && entry.paused != paused) {
+            update(triggerKey, new Entry(entry.trigger, entry.triggerObject, paused, entry.spreadOffset));
+        }
+    }
+
+    // copy on write, readers always see a consistent map per pipe
+    private synchronized void update(TriggerKey triggerKey, Entry entry) {
+        Map<String, Entry> entries = new TreeMap<>(pipes.getOrDefault(triggerKey.getGroup(), Collections.emptyMap()));
+        if (entry != null) {
+            entries.put(triggerKey.getName(), entry);
+        } else {
+            entries.remove(triggerKey.getName());
+        }
+        if (entries.isEmpty()) {
+            pipes.remove(triggerKey.getGroup());
+            pipeVersions.remove(triggerKey.getGroup());
+        } else {
+            pipes.put(triggerKey.getGroup(), Collections.unmodifiableMap(entries));
+            pipeVersions.put(triggerKey.getGroup(), version + 1);
+        }
+        version++;
+        if (entry != null) {
+            nextChange = Math.min(nextChange, entry.nextFireTime(System.currentTimeMillis()));
+        }
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(triggerKey.getGroup());
+        }
+    }
+
+    private JsonArray toJson(Map<String, Entry> entries, Date now, String status) {
+        JsonArray triggerArray = new JsonArray();
+        entries.values().forEach(entry -> {
+            if (status != null && !status.equals(entry.status())) {
+                return;
+            }
+            JsonObject triggerObject = entry.triggerObject.copy();
+            long nextFireTime = entry.nextFireTime(now.getTime());
+            if (nextFireTime != Long.MAX_VALUE) {
+                Date next = new Date(nextFireTime);
+                if (triggerObject.containsKey("next")) {
+                    // next stays free of the spread offset, so it can be sent back unchanged
+                    triggerObject.put("next", format(new Date(next.getTime() - entry.spreadOffset * 1000L)));
+                }
+                triggerObject.put("nextFireTime", format(next));
+            }
+            triggerObject.put("status", entry.status());
+            triggerArray.add(triggerObject);
+        });
+        return triggerArray;
+    }
+
+    private static String format(Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault()).format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+    }
+
+    /**
+     * Iterates the fire times of one trigger within the forecast window.
+     */
+    private abstract static class Cursor implements Comparable<Cursor> {
+        private final String pipeId;
+        private final String triggerId;
+        long next;
+
+        private Cursor(String pipeId, String triggerId) {
+            this.pipeId = pipeId;
+            this.triggerId = triggerId;
+        }
+
+        abstract void reset();
+
+        abstract boolean advance();
+
+        // adds the fires to the histogram, returns their number
+        long count(Histogram histogram) {
+            long count = 0;
+            reset();
+            while (advance()) {
+                histogram.add(next);
+                count++;
+            }
+            return count;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            return Long.compare(next, other.next);
+        }
+
+        private static Cursor of(String pipeId, String triggerId, Trigger trigger, Date from, Date to, Map<String, long[]> cronTimes) {
+            if (trigger instanceof CronTrigger) {
+                CronTrigger cronTrigger = (CronTrigger) trigger;
+                String key = cronTrigger.getCronExpression() + "@" + cronTrigger.getTimeZone().getID();
+                try {
+                    long[] times = cronTimes.get(key);
+                    if (times == null) {
+                        times = CronCursor.times(cronTrigger, from, to);
+                        cronTimes.put(key, times);
+                    }
+                    return new CronCursor(pipeId, triggerId, cronTrigger, times, from, to);
+                } catch (ParseException e) {
+                    // valid when scheduled, not expected
+                }
+            }
+            if (trigger instanceof CalendarIntervalTrigger) {
+                CalendarIntervalTrigger intervalTrigger = (CalendarIntervalTrigger) trigger;
+                long unit = IntervalCursor.unitMillis(intervalTrigger.getRepeatIntervalUnit());
+                if (unit > 0) {
+                    return new IntervalCursor(pipeId, triggerId, intervalTrigger, intervalTrigger.getRepeatInterval() * unit, from, to);
+                }
+            }
+            return new TriggerCursor(pipeId, triggerId, trigger, from, to);
+        }
+    }
+
+    /**
+     * Fire times of an interval trigger in seconds, minutes or hours. These fire every period from the first fire on,
+     * so they are computed instead of asked from the trigger one by one.
+     */
+    private static final class IntervalCursor extends Cursor {
+        private final long period;
+        private final long first;
+        private final long last;
+        private final long fires;
+
+        private IntervalCursor(String pipeId, String triggerId, CalendarIntervalTrigger trigger, long period, Date from, Date to) {
+            super(pipeId, triggerId);
+            this.period = period;
+            Date firstTime = trigger.getFireTimeAfter(new Date(from.getTime() - 1));
+            long end = trigger.getEndTime() != null ? Math.min(to.getTime(), trigger.getEndTime().getTime()) : to.getTime();
+            first = firstTime != null ? firstTime.getTime() : Long.MAX_VALUE;
+            fires = first <= end ? (end - first) / period + 1 : 0;
+            last = first + (fires - 1) * period;
+        }
+
+        @Override
+        void reset() {
+            next = first - period;
+        }
+
+        @Override
+        boolean advance() {
+            if (fires == 0 || next >= last) {
+                return false;
+            }
+            next += period;
+            return true;
+        }
+
+        @Override
+        long count(Histogram histogram) {
+            if (fires > 0) {
+                histogram.addEvery(first, last, period);
+            }
+            return fires;
+        }
+
+        // units of a fixed length, longer ones depend on the calendar
+        private static long unitMillis(DateBuilder.IntervalUnit unit) {
+            switch (unit) {
+                case SECOND:
+                    return 1000;
+                case MINUTE:
+                    return 60000;
+                case HOUR:
+                    return 3600000;
+                default:
+                    return 0;
+            }
+        }
+    }
+
+    /**
+     * Number of fires per minute of the forecast window.
+     */
+    private static final class Histogram {
+        private final long minuteZero;
+        private final int[] minutes;
+        // per stride, steps added to the minute and every stride minutes after it
+        private final Map<Integer, int[]> strides = new HashMap<>();
+        // per shared array of cron fire times, steps in the number of triggers firing at each of them
+        private final Map<long[], int[]> ranges = new IdentityHashMap<>();
+
+        private Histogram(Date from, Date to) {
+            minuteZero = from.getTime() / MINUTE;
+            minutes = new int[(int) (to.getTime() / MINUTE - minuteZero) + 1];
+        }
+
+        private void add(long time) {
+            minutes[minute(time)]++;
+        }
+
+        // fires every period from first to last
+        private void addEvery(long first, long last, long period) {
+            if (period >= MINUTE) {
+                for (long time = first; time <= last; time += period) {
+                    add(time);
+                }
+                return;
+            }
+            int firstMinute = minute(first);
+            int lastMinute = minute(last);
+            minutes[firstMinute] += between(first, last, period, firstMinute);
+            if (lastMinute == firstMinute) {
+                return;
+            }
+            minutes[lastMinute] += between(first, last, period, lastMinute);
+            // the whole minutes in between repeat their number of fires every stride minutes
+            int stride = (int) (period / gcd(period, MINUTE));
+            if (lastMinute - firstMinute - 1 <= stride) {
+                for (int minute = firstMinute + 1; minute < lastMinute; minute++) {
+                    minutes[minute] += between(first, last, period, minute);
+                }
+                return;
+            }
+            int[] steps = strides.computeIfAbsent(stride, s -> new int[minutes.length + s]);
+            for (int minute = firstMinute + 1; minute <= firstMinute + stride; minute++) {
+                int count = between(first, last, period, minute);
+                int repeats = (lastMinute - 1 - minute) / stride + 1;
+                steps[minute] += count;
+                steps[minute + repeats * stride] -= count;
+            }
+        }
+
+        // fires at times[first] up to, excluding, times[end]
+        private void addRange(long[] times, int first, int end) {
+            if (first < end) {
+                int[] steps = ranges.computeIfAbsent(times, t -> new int[t.length + 1]);
+                steps[first]++;
+                steps[end]--;
+            }
+        }
+
+        // fires within the given minute
+        private int between(long first, long last, long period, int minute) {
+            long start = Math.max(first, (minuteZero + minute) * MINUTE);
+            long end = Math.min(last, (minuteZero + minute + 1) * MINUTE - 1);
+            return (int) ((end - first) / period - (start - first + period - 1) / period + 1);
+        }
+
+        private int minute(long time) {
+            return (int) (time / MINUTE - minuteZero);
+        }
+
+        private int[] minutes() {
+            strides.forEach((stride, steps) -> {
+                for (int i = 0; i < minutes.length; i++) {
+                    if (i >= stride) {
+                        steps[i] += steps[i - stride];
+                    }
+                    minutes[i] += steps[i];
+                }
+            });
+            strides.clear();
+            ranges.forEach((times, steps) -> {
+                int triggers = 0;
+                for (int i = 0; i < times.length; i++) {
+                    triggers += steps[i];
+                    minutes[minute(times[i])] += triggers;
+                }
+            });
+            ranges.clear();
+            return minutes;
+        }
+
+        private static long gcd(long a, long b) {
+            return b == 0 ? a : gcd(b, a % b);
+        }
+    }
+
+    private static final class TriggerCursor extends Cursor {
+        private final Trigger trigger;
+        private final long from;
+        private final long to;
+
+        private TriggerCursor(String pipeId, String triggerId, Trigger trigger, Date from, Date to) {
+            super(pipeId, triggerId);
+            this.trigger = trigger;
+            this.from = from.getTime();
+            this.to = to.getTime();
+        }
+
+        @Override
+        void reset() {
+            next = from - 1;
+        }
+
+        @Override
+        boolean advance() {
+            Date fireTime = trigger.getFireTimeAfter(new Date(next));
+            if (fireTime == null || fireTime.getTime() > to) {
+                return false;
+            }
+            next = fireTime.getTime();
+            return true;
+        }
+    }
+
+    /**
+     * Fire times of a cron trigger, taken from the shared times of its expression and bounded by the trigger's start
+     * and end time the way CronTrigger.getFireTimeAfter does.
+     */
+    private static final class CronCursor extends Cursor {
+        private final long[] times;
+        private final int first;
+        private final int end;
+        private int index;
+
+        private CronCursor(String pipeId, String triggerId, CronTrigger trigger, long[] times, Date from, Date to) {
+            super(pipeId, triggerId);
+            this.times = times;
+            long after = Math.max(from.getTime() - 1, trigger.getStartTime().getTime() - 1000);
+            int position = Arrays.binarySearch(times, after);
+            first = position >= 0 ? position + 1 : -position - 1;
+            long last = trigger.getEndTime() != null ? Math.min(to.getTime(), trigger.getEndTime().getTime()) : to.getTime();
+            position = Arrays.binarySearch(times, last);
+            end = Math.max(first, position >= 0 ? position + 1 : -position - 1);
+        }
+
+        @Override
+        void reset() {
+            index = first;
+        }
+
+        @Override
+        boolean advance() {
+            if (index >= end) {
+                return false;
+            }
+            next = times[index++];
+            return true;
+        }
+
+        @Override
+        long count(Histogram histogram) {
+            histogram.addRange(times, first, end);
+            return end - first;
+        }
+
+        private static long[] times(CronTrigger trigger, Date from, Date to) throws ParseException {
+            CronExpression expression = new CronExpression(trigger.getCronExpression());
+            expression.setTimeZone(trigger.getTimeZone());
+            List<Long> times = new ArrayList<>();
+            Date time = expression.getTimeAfter(new Date(from.getTime() - 1));
+            while (time != null && !time.after(to)) {
+                times.add(time.getTime());
+                time = expression.getTimeAfter(time);
+            }
+            return times.stream().mapToLong(Long::longValue).toArray();
+        }
+    }
+
+    private static final class Entry {
+        private final Trigger trigger;
+        private final JsonObject triggerObject;
+        private final boolean paused;
+        private final int spreadOffset;
+
+        // fire time after the last lookup, still valid while in the future
+        private volatile long next;
+
+        private Entry(Trigger trigger, JsonObject triggerObject, boolean paused, int spreadOffset) {
+            this.trigger = trigger;
+            this.triggerObject = triggerObject;
+            this.paused = paused;
+            this.spreadOffset = spreadOffset;
+        }
+
+        private String status() {
+            return paused ? "disabled" : "enabled";
+        }
+
+        // every write of a trigger stores a new version
+        private boolean sameAs(Entry other) {
+            return paused == other.paused
+                    && triggerObject.equals(other.triggerObject)
+                    && Objects.equals(trigger.getJobDataMap().getString("triggerVersion"),
+                    other.trigger.getJobDataMap().getString("triggerVersion"));
+        }
+
+        private long nextFireTime(long now) {
+            long cached = next;
+            if (cached > now) {
+                return cached;
+            }
+            Date fireTime = trigger.getFireTimeAfter(new Date(now));
+            next = fireTime != null ? fireTime.getTime() : Long.MAX_VALUE;
+            return next;
+        }
+
+        private static Entry of(Trigger trigger, boolean paused) {
+            String triggerObject = trigger.getJobDataMap().getString("triggerObject");
+            if (triggerObject == null) {
+                return null;
+            }
+            String spreadOffset = trigger.getJobDataMap().getString("spreadOffset");
+            return new Entry(trigger.getTriggerBuilder().build(), new JsonObject(triggerObject), paused, spreadOffset != null ? Integer.parseInt(spreadOffset) : 0);
+        }
+    }
+
+}
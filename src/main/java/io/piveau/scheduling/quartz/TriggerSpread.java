@@ -0,0 +1,43 @@
+package io.piveau.scheduling.quartz;
+
+/**
+ * Deterministic spreading of fire times. Every trigger gets a fixed offset within its spread window, derived from
+ * pipe id and trigger id, so triggers sharing a schedule no longer fire in the same second.
+ */
+final class TriggerSpread {
+
+    private TriggerSpread() {
+    }
+
+    static int offset(String pipeId, String triggerId, int window) {
+        return window > 0 ? Math.floorMod((pipeId + "/" + triggerId).hashCode(), window) : 0;
+    }
+
+    /**
+     * Moves a cron expression with a fixed second, and optionally a fixed minute, by the trigger's offset. The offset
+     * is kept within the hour (or the minute) so hours and days of the expression stay untouched. Expressions with a
+     * variable second field are returned as they are.
+     */
+    static String cron(String cron, String pipeId, String triggerId, int window) {
+        String[] fields = cron.trim().split("\\s+");
+        if (window <= 0 || fields.length < 6 || !isNumber(fields[0])) {
+            return cron;
+        }
+
+        int second = Integer.parseInt(fields[0]);
+        if (isNumber(fields[1])) {
+            int base = Integer.parseInt(fields[1]) * 60 + second;
+            int time = base + offset(pipeId, triggerId, Math.min(window, 3600 - base));
+            fields[0] = Integer.toString(time % 60);
+            fields[1] = Integer.toString(time / 60);
+        } else {
+            fields[0] = Integer.toString(second + offset(pipeId, triggerId, Math.min(window, 60 - second)));
+        }
+        return String.join(" ", fields);
+    }
+
+    private static boolean isNumber(String field) {
+        return !field.isEmpty() && field.chars().allMatch(Character::isDigit);
+    }
+
+}
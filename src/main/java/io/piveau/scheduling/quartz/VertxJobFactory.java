@@ -1,37 +1,64 @@
 package io.piveau.scheduling.quartz;
 
 import io.piveau.scheduling.launcher.LauncherService;
+import io.piveau.scheduling.metrics.SchedulerMetrics;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
 import org.quartz.Job;
 import org.quartz.JobDetail;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerException;
+import org.quartz.Trigger;
 import org.quartz.simpl.SimpleJobFactory;
 import org.quartz.spi.TriggerFiredBundle;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+
 public class VertxJobFactory extends SimpleJobFactory {
 
-    private final LauncherService launcherService;
+    private final LaunchAdmission admission;
+
+    private final LaunchDescriptorCache descriptors = new LaunchDescriptorCache();
+
+    private final FireJournal journal;
 
-    static VertxJobFactory create(Vertx vertx) {
-        LauncherService launcherService = LauncherService.createProxy(vertx, LauncherService.SERVICE_ADDRESS);
-        return new VertxJobFactory(launcherService);
+    static VertxJobFactory create(Vertx vertx, JsonObject launchConfig) throws IOException {
+        LauncherService launcherService = SchedulerMetrics.timed(LauncherService.class,
+                LauncherService.createLocalOrProxy(vertx, LauncherService.SERVICE_ADDRESS), "launcher");
+        JsonObject journalConfig = launchConfig.getJsonObject("journal", new JsonObject());
+        FireJournal journal = FireJournal.open(Paths.get(journalConfig.getString("path", "./db/journal")),
+                journalConfig.getInteger("capacity", 65536));
+        return new VertxJobFactory(new LaunchAdmission(vertx, launcherService, launchConfig), journal);
     }
 
-    private VertxJobFactory(LauncherService launcherService) {
-        this.launcherService = launcherService;
+    VertxJobFactory(LaunchAdmission admission, FireJournal journal) {
+        this.admission = admission;
+        this.journal = journal;
     }
 
     @Override
     public Job newJob(TriggerFiredBundle triggerFiredBundle, Scheduler scheduler) throws SchedulerException {
         final JobDetail jobDetail = triggerFiredBundle.getJobDetail();
+        final Trigger trigger = triggerFiredBundle.getTrigger();
         String pipeName = jobDetail.getKey().getName();
         final Class<? extends Job> jobClass = jobDetail.getJobClass();
-        try {
-            return jobClass.getConstructor(LauncherService.class, String.class).newInstance(launcherService, pipeName);
-        } catch (Exception e) {
+        if (jobClass != PipeJob.class) {
             throw new SchedulerException("Could not create a job of type " + jobClass);
         }
+        return new PipeJob(admission, descriptors.get(trigger.getKey(), pipeName, trigger.getJobDataMap()), journal);
+    }
+
+    LaunchDescriptorCache descriptors() {
+        return descriptors;
+    }
+
+    LaunchAdmission admission() {
+        return admission;
+    }
+
+    FireJournal journal() {
+        return journal;
     }
 
 }
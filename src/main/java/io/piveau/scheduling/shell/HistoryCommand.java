@@ -0,0 +1,56 @@
+package io.piveau.scheduling.shell;
+
+import io.piveau.scheduling.launcher.LauncherService;
+import io.piveau.scheduling.quartz.QuartzService;
+import io.vertx.core.Vertx;
+import io.vertx.core.cli.Argument;
+import io.vertx.core.cli.CLI;
+import io.vertx.core.cli.CommandLine;
+import io.vertx.core.cli.Option;
+import io.vertx.ext.shell.command.Command;
+import io.vertx.ext.shell.command.CommandBuilder;
+
+public class HistoryCommand {
+
+    private final Command command;
+
+    private final QuartzService quartzService;
+
+    private final LauncherService launcherService;
+
+    private HistoryCommand(Vertx vertx) {
+        launcherService = LauncherService.createLocalOrProxy(vertx, LauncherService.SERVICE_ADDRESS);
+        quartzService = QuartzService.createProxy(vertx, QuartzService.SERVICE_ADDRESS);
+        command = CommandBuilder.command(
+                CLI.create("history")
+                        .setDescription("Display the latest fires of a pipe")
+                        .addArgument(
+                                new Argument().setIndex(0)
+                                        .setArgName("pipeName")
+                                        .setRequired(true)
+                                        .setDescription("Name of the pipe"))
+                        .addOption(new Option().setHelp(true).setFlag(true).setArgName("help").setShortName("h").setLongName("help"))
+                        .addOption(new Option().setArgName("limit").setShortName("n").setLongName("limit").setDefaultValue("20")
+                                .setDescription("Maximum number of fires"))
+        ).completionHandler(completion -> PipeNameCompletion.complete(launcherService, completion)
+        ).processHandler(process -> {
+            CommandLine commandLine = process.commandLine();
+            String pipeName = commandLine.getArgumentValue(0);
+            int limit;
+            try {
+                limit = Integer.parseInt(commandLine.getOptionValue("limit"));
+            } catch (NumberFormatException e) {
+                process.write("Limit must be a number\n").end();
+                return;
+            }
+            quartzService.getHistory(pipeName, limit)
+                    .onSuccess(history -> process.write("\n" + history.encodePrettily() + "\n").end())
+                    .onFailure(cause -> process.write(cause.getMessage() + "\n").end());
+        }).build(vertx);
+    }
+
+    public static Command create(Vertx vertx) {
+        return new HistoryCommand(vertx).command;
+    }
+
+}
@@ -0,0 +1,33 @@
+package io.piveau.scheduling.shell;
+
+import io.piveau.scheduling.launcher.LauncherService;
+import io.piveau.utils.Piveau;
+import io.vertx.ext.shell.cli.CliToken;
+import io.vertx.ext.shell.cli.Completion;
+
+import java.util.List;
+
+/**
+ * Completes pipe names, asking the launcher only for names starting with the word being completed.
+ */
+final class PipeNameCompletion {
+
+    private PipeNameCompletion() {
+    }
+
+    static void complete(LauncherService launcherService, Completion completion) {
+        launcherService.pipeNames(prefix(completion.lineTokens()))
+                .onSuccess(candidates -> Piveau.candidatesCompletion(completion, candidates))
+                .onFailure(cause -> completion.complete("", true));
+    }
+
+    // the last word, unless it is still the command name or the line ends with a blank
+    private static String prefix(List<CliToken> tokens) {
+        long words = tokens.stream().filter(CliToken::isText).count();
+        if (words < 2 || !tokens.get(tokens.size() - 1).isText()) {
+            return null;
+        }
+        return tokens.get(tokens.size() - 1).value();
+    }
+
+}
@@ -47,6 +47,8 @@ public class ShellVerticle extends AbstractVerticle {
                     commands.add(LaunchCommand.create(vertx));
                     commands.add(ShowCommand.create(vertx));
                     commands.add(TriggerCommand.create(vertx));
+                    commands.add(HistoryCommand.create(vertx));
+                    commands.add(ThreadsCommand.create(vertx));
                     return CommandRegistry.getShared(vertx).registerCommands(commands);
                 })
                 .onSuccess(list -> promise.complete())
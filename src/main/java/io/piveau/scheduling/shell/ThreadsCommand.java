@@ -0,0 +1,46 @@
+package io.piveau.scheduling.shell;
+
+import io.piveau.scheduling.quartz.QuartzService;
+import io.vertx.core.Vertx;
+import io.vertx.core.cli.Argument;
+import io.vertx.core.cli.CLI;
+import io.vertx.core.cli.Option;
+import io.vertx.ext.shell.command.Command;
+import io.vertx.ext.shell.command.CommandBuilder;
+
+public class ThreadsCommand {
+
+    private final Command command;
+
+    private final QuartzService quartzService;
+
+    private ThreadsCommand(Vertx vertx) {
+        quartzService = QuartzService.createProxy(vertx, QuartzService.SERVICE_ADDRESS);
+        command = CommandBuilder.command(
+                CLI.create("threads")
+                        .setDescription("Resize the pool running the jobs")
+                        .addArgument(
+                                new Argument().setIndex(0)
+                                        .setArgName("size")
+                                        .setRequired(true)
+                                        .setDescription("Number of jobs running at once"))
+                        .addOption(new Option().setHelp(true).setFlag(true).setArgName("help").setShortName("h").setLongName("help"))
+        ).processHandler(process -> {
+            int size;
+            try {
+                size = Integer.parseInt(process.commandLine().getArgumentValue(0));
+            } catch (NumberFormatException e) {
+                process.write("Size must be a number\n").end();
+                return;
+            }
+            quartzService.resizeThreadPool(size)
+                    .onSuccess(resized -> process.write("Thread pool size is now " + resized + "\n").end())
+                    .onFailure(cause -> process.write(cause.getMessage() + "\n").end());
+        }).build(vertx);
+    }
+
+    public static Command create(Vertx vertx) {
+        return new ThreadsCommand(vertx).command;
+    }
+
+}
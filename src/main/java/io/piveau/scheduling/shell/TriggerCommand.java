@@ -2,7 +2,6 @@ package io.piveau.scheduling.shell;
 
 import io.piveau.scheduling.launcher.LauncherService;
 import io.piveau.scheduling.quartz.QuartzService;
-import io.piveau.utils.Piveau;
 import io.vertx.core.Vertx;
 import io.vertx.core.cli.Argument;
 import io.vertx.core.cli.CLI;
@@ -11,9 +10,6 @@ import io.vertx.core.cli.Option;
 import io.vertx.ext.shell.command.Command;
 import io.vertx.ext.shell.command.CommandBuilder;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 public class TriggerCommand {
 
     private final Command command;
@@ -23,7 +19,7 @@ public class TriggerCommand {
     private final LauncherService launcherService;
 
     private TriggerCommand(Vertx vertx) {
-        launcherService = LauncherService.createProxy(vertx, LauncherService.SERVICE_ADDRESS);
+        launcherService = LauncherService.createLocalOrProxy(vertx, LauncherService.SERVICE_ADDRESS);
         quartzService = QuartzService.createProxy(vertx, QuartzService.SERVICE_ADDRESS);
         command = CommandBuilder.command(
                 CLI.create("trigger")
@@ -34,18 +30,11 @@ public class TriggerCommand {
                                         .setDescription("The name of the pipe."))
                         .addOption(new Option().setHelp(true).setFlag(true).setArgName("help").setShortName("h").setLongName("help"))
                         .addOption(new Option().setFlag(true).setArgName("verbose").setShortName("v").setLongName("verbose"))
-        ).completionHandler(completion ->
-            launcherService.availablePipes()
-                    .onSuccess(list -> {
-                        List<String> candidates = list.stream().map(p -> p.getJsonObject("header").getString("name"))
-                                .collect(Collectors.toList());
-                        Piveau.candidatesCompletion(completion, candidates);
-                    })
-                    .onFailure(cause -> completion.complete("", true))
+        ).completionHandler(completion -> PipeNameCompletion.complete(launcherService, completion)
         ).processHandler(process -> {
             CommandLine commandLine = process.commandLine();
             if (commandLine.allArguments().isEmpty()) {
-                quartzService.listTriggers()
+                quartzService.listTriggers(0, null, null)
                         .onSuccess(triggers -> process.write("\n" + triggers.encodePrettily() + "\n").end())
                         .onFailure(cause -> process.write(cause.getMessage() + "\n").end());
             } else {
@@ -0,0 +1,233 @@
+package io.piveau.scheduling.quartz;
+
+import io.piveau.scheduling.ApplicationConfig;
+import io.piveau.scheduling.launcher.LauncherService;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.h2.tools.Server;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.quartz.Scheduler;
+import org.quartz.impl.SchedulerRepository;
+import org.quartz.utils.DBConnectionManager;
+
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two clustered nodes sharing one H2 database: every fire runs on exactly one node, and a surviving node recovers the
+ * triggers of a crashed one.
+ */
+class ClusteredSchedulerTest {
+
+    private static final String SCHEDULER_NAME = "ClusteredSchedulerTest";
+    private static final int PIPES = 12;
+    private static final long CHECKIN_INTERVAL = 1000;
+    // quartz declares a node failed 7.5 s after its check-in is overdue, a recovered trigger waits for the next scan
+    private static final long RECOVERY_TIME = CHECKIN_INTERVAL + 7500 + CHECKIN_INTERVAL;
+    private static final long SLACK = 5000;
+
+    private Server server;
+    private final List<Vertx> vertxs = new ArrayList<>();
+    private final List<Scheduler> schedulers = new ArrayList<>();
+
+    @BeforeEach
+    void startDatabase() throws Exception {
+        server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        for (Scheduler scheduler : schedulers) {
+            if (!scheduler.isShutdown()) {
+                scheduler.shutdown(false);
+            }
+        }
+        for (Vertx vertx : vertxs) {
+            await(vertx.close());
+        }
+        server.stop();
+    }
+
+    @Test
+    void firesOnceAcrossNodesAndRecoversCrashedNode() throws Exception {
+        QuartzService nodeA = startNode("nodeA");
+        QuartzService nodeB = startNode("nodeB");
+
+        String next = Instant.now().plusSeconds(1).toString();
+        for (int i = 0; i < PIPES; i++) {
+            JsonObject trigger = new JsonObject()
+                    .put("id", "every-second")
+                    .put("status", "enabled")
+                    .put("interval", new JsonObject().put("value", 1).put("unit", "SECOND"))
+                    .put("next", next);
+            assertEquals("created", await(nodeA.createOrUpdateTrigger(pipeId(i), new JsonArray().add(trigger))));
+        }
+        awaitUntil(10000 + SLACK, () -> !fires(nodeA, 0).isEmpty() && !fires(nodeB, 0).isEmpty(), "both nodes firing");
+
+        Map<String, Integer> firesA = fires(nodeA, 0);
+        Map<String, Integer> firesB = fires(nodeB, 0);
+        Set<String> both = new HashSet<>(firesA.keySet());
+        both.retainAll(firesB.keySet());
+        assertTrue(both.isEmpty(), "Fired on both nodes: " + both);
+        firesA.forEach((fire, count) -> assertEquals(1, count, "Fired twice on nodeA: " + fire));
+        firesB.forEach((fire, count) -> assertEquals(1, count, "Fired twice on nodeB: " + fire));
+        assertFalse(firesA.isEmpty(), "nodeA never fired");
+        assertFalse(firesB.isEmpty(), "nodeB never fired");
+
+        // crash nodeA while it holds an acquired trigger: without connections it neither checks in nor releases it
+        awaitUntil(5000 + SLACK, () -> !acquired("nodeA", System.currentTimeMillis() + 200).isEmpty(), "nodeA acquiring");
+        DBConnectionManager.getInstance().shutdown("nodeA");
+        long crashed = System.currentTimeMillis();
+        Set<String> orphans = acquired("nodeA", 0);
+        assertFalse(orphans.isEmpty(), "No trigger orphaned by nodeA");
+
+        awaitUntil(RECOVERY_TIME + SLACK, () -> fires(nodeB, crashed).keySet().containsAll(orphans),
+                "nodeB firing the orphaned triggers " + orphans);
+        assertTrue(acquired("nodeA", 0).isEmpty(), "Triggers still held by nodeA");
+        assertTrue(fires(nodeA, crashed).isEmpty(), "nodeA fired after the crash");
+
+        awaitUntil(RECOVERY_TIME + SLACK, () -> pipesFired(nodeB, crashed) == PIPES, "nodeB firing every pipe");
+    }
+
+    private QuartzService startNode(String node) throws Exception {
+        String url = url();
+        String dataSource = "org.quartz.dataSource." + node + ".";
+        JsonObject quartzConfig = new JsonObject()
+                .put("url", url)
+                .put("user", "sa")
+                .put("password", "")
+                .put("clustered", true)
+                .put("instanceId", node)
+                .put("checkinInterval", CHECKIN_INTERVAL)
+                // a data source per node, crashing a node closes it
+                .put("properties", new JsonObject()
+                        .put("org.quartz.scheduler.instanceName", SCHEDULER_NAME)
+                        // triggers created on the other node do not wake an idle node
+                        .put("org.quartz.scheduler.idleWaitTime", 1000)
+                        .put("org.quartz.jobStore.dataSource", node)
+                        .put(dataSource + "connectionProvider.class", PooledConnectionProvider.class.getName())
+                        .put(dataSource + "driver", "org.h2.Driver")
+                        .put(dataSource + "URL", url)
+                        .put(dataSource + "user", "sa")
+                        .put(dataSource + "password", "")
+                        .put(dataSource + "maxConnections", 5));
+        JsonObject config = new JsonObject()
+                .put(ApplicationConfig.ENV_PIVEAU_QUARTZ_CONFIG, quartzConfig)
+                .put(ApplicationConfig.ENV_PIVEAU_TRIGGER_SPREAD, 0);
+
+        Vertx vertx = Vertx.vertx();
+        vertxs.add(vertx);
+        LauncherService launcher = new KnownPipesLauncher();
+        VertxJobFactory jobFactory = new VertxJobFactory(new LaunchAdmission(vertx, launcher, new JsonObject()),
+                FireJournal.open(Files.createTempFile("journal", null), 1024));
+        QuartzService service = await(Future.<QuartzService>future(promise ->
+                new QuartzServiceImpl(vertx, config, jobFactory, launcher, promise)));
+
+        // the factory hands out the registered scheduler of the same name, the next node needs its own
+        Scheduler scheduler = SchedulerRepository.getInstance().lookup(SCHEDULER_NAME);
+        schedulers.add(scheduler);
+        SchedulerRepository.getInstance().remove(SCHEDULER_NAME);
+        return service;
+    }
+
+    // pipe@scheduled millis of fires due from the given time on, with their count
+    private static Map<String, Integer> fires(QuartzService node, long from) {
+        Map<String, Integer> fires = new HashMap<>();
+        for (int i = 0; i < PIPES; i++) {
+            String pipeId = pipeId(i);
+            await(node.getHistory(pipeId, 1000)).stream()
+                    .map(fire -> OffsetDateTime.parse(((JsonObject) fire).getString("scheduled")).toInstant().toEpochMilli())
+                    .filter(scheduled -> scheduled >= from)
+                    .forEach(scheduled -> fires.merge(pipeId + "@" + scheduled, 1, Integer::sum));
+        }
+        return fires;
+    }
+
+    private static long pipesFired(QuartzService node, long from) {
+        return fires(node, from).keySet().stream().map(fire -> fire.substring(0, fire.indexOf('@'))).distinct().count();
+    }
+
+    // pipe@scheduled millis of triggers the node acquired and has not fired yet, due from the given time on
+    private Set<String> acquired(String node, long from) {
+        Set<String> acquired = new HashSet<>();
+        try (Connection connection = DriverManager.getConnection(url(), "sa", "");
+             PreparedStatement statement = connection.prepareStatement("SELECT TRIGGER_GROUP, SCHED_TIME FROM QRTZ_FIRED_TRIGGERS"
+                     + " WHERE INSTANCE_NAME = ? AND STATE = 'ACQUIRED' AND SCHED_TIME >= ?")) {
+            statement.setString(1, node);
+            statement.setLong(2, from);
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    acquired.add(result.getString(1) + "@" + result.getLong(2));
+                }
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return acquired;
+    }
+
+    private static void awaitUntil(long timeout, BooleanSupplier condition, String description) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Not within " + timeout + " ms: " + description);
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private String url() {
+        return "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:cluster;DB_CLOSE_DELAY=-1";
+    }
+
+    private static String pipeId(int i) {
+        return "pipe-" + i;
+    }
+
+    private static <T> T await(Future<T> future) {
+        return future.toCompletionStage().toCompletableFuture().join();
+    }
+
+    private static class KnownPipesLauncher implements LauncherService {
+
+        @Override
+        public Future<String> launch(String pipeName, JsonObject configs) {
+            return Future.succeededFuture(UUID.randomUUID().toString());
+        }
+
+        @Override
+        public Future<Boolean> isPipeAvailable(String pipeName) {
+            return Future.succeededFuture(true);
+        }
+
+        @Override
+        public Future<JsonObject> getPipe(String pipeName) {
+            return Future.succeededFuture(new JsonObject());
+        }
+
+        @Override
+        public Future<List<JsonObject>> availablePipes() {
+            return Future.succeededFuture(List.of());
+        }
+
+        @Override
+        public Future<List<String>> pipeNames(String prefix) {
+            return Future.succeededFuture(List.of());
+        }
+
+    }
+
+}